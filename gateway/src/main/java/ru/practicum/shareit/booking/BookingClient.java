@@ -1,5 +1,7 @@
 package ru.practicum.shareit.booking;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -11,29 +13,40 @@ import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
+    // счётчики по состояниям: несколько секунд устаревания допустимы, повторные запросы не доходят до сервера
+    private final Cache<String, ResponseEntity<Object>> summaries;
+
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         @Value("${shareit.gateway.booking-summary.ttl:PT5S}") Duration summaryTtl,
+                         @Value("${shareit.gateway.booking-summary.max-size:10000}") long summaryMaxSize) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
                         .requestFactory(HttpComponentsClientHttpRequestFactory::new)
                         .build()
         );
+        this.summaries = Caffeine.newBuilder()
+                .maximumSize(summaryMaxSize)
+                .expireAfterWrite(summaryTtl)
+                .build();
     }
 
-    public ResponseEntity<Object> getAllBookings(long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
-                "state", state.name(),
-                "from", from,
-                "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+    public ResponseEntity<Object> getAllBookings(long userId, BookingState state, Integer from, Integer size,
+                                                 String cursor, Long itemId, LocalDateTime rangeStart,
+                                                 LocalDateTime rangeEnd) {
+        return getBookings("", userId, state, from, size, cursor, itemId, rangeStart, rangeEnd);
     }
 
     public ResponseEntity<Object> create(long userId, BookItemRequestDto requestDto) {
@@ -51,12 +64,58 @@ public class BookingClient extends BaseClient {
         return patch("/" + bookingId + "?approved={approved}", userId, parameters, null);
     }
 
-    public ResponseEntity<Object> getBookingsByOwner(Long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getBookingsByOwner(Long userId, BookingState state, Integer from, Integer size,
+                                                     String cursor, Long itemId, LocalDateTime rangeStart,
+                                                     LocalDateTime rangeEnd) {
+        return getBookings("/owner", userId, state, from, size, cursor, itemId, rangeStart, rangeEnd);
+    }
+
+    public ResponseEntity<Object> getSummary(long userId) {
+        return getSummary("/summary", userId);
+    }
+
+    public ResponseEntity<Object> getSummaryByOwner(long userId) {
+        return getSummary("/owner/summary", userId);
+    }
+
+    public void exportBookingsByOwner(Long userId, HttpServletResponse response) throws IOException {
+        stream("/owner/export", userId, response);
+    }
+
+    private ResponseEntity<Object> getSummary(String path, long userId) {
+        String key = path + "#" + userId;
+        ResponseEntity<Object> cached = summaries.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        ResponseEntity<Object> response = get(path, userId);
+        if (response.getStatusCode().is2xxSuccessful()) {
+            summaries.put(key, response);
+        }
+        return response;
+    }
+
+    private ResponseEntity<Object> getBookings(String path, long userId, BookingState state, Integer from,
+                                               Integer size, String cursor, Long itemId,
+                                               LocalDateTime rangeStart, LocalDateTime rangeEnd) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        StringBuilder query = new StringBuilder(path).append("?state={state}&from={from}&size={size}");
+        if (itemId != null) {
+            parameters.put("itemId", itemId);
+            query.append("&itemId={itemId}");
+        }
+        if (rangeStart != null) {
+            parameters.put("rangeStart", rangeStart);
+            query.append("&rangeStart={rangeStart}");
+        }
+        if (rangeEnd != null) {
+            parameters.put("rangeEnd", rangeEnd);
+            query.append("&rangeEnd={rangeEnd}");
+        }
+        return getPage(query.toString(), userId, parameters, cursor);
     }
 }
@@ -3,6 +3,7 @@ package ru.practicum.shareit.booking;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -11,10 +12,13 @@ import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.exception.BadRequestException;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.time.LocalDateTime;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -28,11 +32,24 @@ public class BookingController {
     public ResponseEntity<Object> getBookings(@RequestHeader("X-Sharer-User-Id") long userId,
                                               @RequestParam(name = "state", defaultValue = "all") String stateParam,
                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                              @RequestParam(required = false) String cursor,
+                                              @Positive @RequestParam(required = false) Long itemId,
+                                              @RequestParam(required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime rangeStart,
+                                              @RequestParam(required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime rangeEnd) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
+        checkRange(rangeStart, rangeEnd);
         log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getAllBookings(userId, state, from, size);
+        return bookingClient.getAllBookings(userId, state, from, size, cursor, itemId, rangeStart, rangeEnd);
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<Object> getSummary(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Get booking summary, userId={}", userId);
+        return bookingClient.getSummary(userId);
     }
 
     @PostMapping
@@ -61,10 +78,36 @@ public class BookingController {
     public ResponseEntity<Object> getAllBookingsByOwner(@RequestParam(defaultValue = "ALL") String state,
                                                         @RequestHeader("X-Sharer-User-Id") Long userId,
                                                         @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                        @Positive @RequestParam(defaultValue = "10") Integer size) {
+                                                        @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @Positive @RequestParam(required = false) Long itemId,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime rangeStart,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime rangeEnd) {
         BookingState stateParam = BookingState.from(state)
                 .orElseThrow(() -> new BadRequestException("Unknown state: " + state));
+        checkRange(rangeStart, rangeEnd);
         log.info("Get booking with state {}, userId={}, from={}, size={}", state, userId, from, size);
-        return bookingClient.getBookingsByOwner(userId, stateParam, from, size);
+        return bookingClient.getBookingsByOwner(userId, stateParam, from, size, cursor, itemId, rangeStart, rangeEnd);
+    }
+
+    @GetMapping("/owner/summary")
+    public ResponseEntity<Object> getSummaryByOwner(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Get owner booking summary, userId={}", userId);
+        return bookingClient.getSummaryByOwner(userId);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportBookingsByOwner(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                      HttpServletResponse response) throws IOException {
+        log.info("Export bookings, userId={}", userId);
+        bookingClient.exportBookingsByOwner(userId, response);
+    }
+
+    private void checkRange(LocalDateTime rangeStart, LocalDateTime rangeEnd) {
+        if (rangeStart != null && rangeEnd != null && !rangeStart.isBefore(rangeEnd)) {
+            throw new BadRequestException("rangeStart must be before rangeEnd");
+        }
     }
 }
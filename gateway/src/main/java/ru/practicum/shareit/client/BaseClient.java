@@ -1,16 +1,27 @@
 package ru.practicum.shareit.client;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 public class BaseClient {
     protected final RestTemplate rest;
@@ -79,6 +90,71 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    protected ResponseEntity<Object> getPage(String path, Long userId, Map<String, Object> parameters,
+                                             @Nullable String cursor) {
+        if (cursor == null) {
+            return get(path, userId, parameters);
+        }
+        Map<String, Object> cursorParameters = new HashMap<>(parameters);
+        cursorParameters.put("cursor", cursor);
+        return get(path + "&cursor={cursor}", userId, cursorParameters);
+    }
+
+    // ответ сервера копируется в ответ шлюза по мере чтения, без буферизации всего тела
+    protected void stream(String path, Long userId, HttpServletResponse response) throws IOException {
+        try {
+            rest.execute(path, HttpMethod.GET, request -> {
+                request.getHeaders().setAccept(List.of(MediaType.ALL));
+                request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+            }, serverResponse -> {
+                response.setStatus(serverResponse.getRawStatusCode());
+                MediaType contentType = serverResponse.getHeaders().getContentType();
+                if (contentType != null) {
+                    response.setContentType(contentType.toString());
+                }
+                StreamUtils.copy(serverResponse.getBody(), response.getOutputStream());
+                return null;
+            });
+        } catch (HttpStatusCodeException e) {
+            response.setStatus(e.getRawStatusCode());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(e.getResponseBodyAsByteArray());
+        }
+    }
+
+    // долгий поток событий: статус сервера возвращается сразу, тело копируется вне потока Tomcat
+    // и сбрасывается клиенту после каждого чтения, чтобы события не задерживались в буфере
+    protected ResponseEntity<StreamingResponseBody> streamEvents(HttpClient client, String path,
+                                                                 Long userId) throws IOException {
+        HttpGet request = new HttpGet(rest.getUriTemplateHandler().expand(path));
+        request.setHeader(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE + ", " + MediaType.APPLICATION_JSON_VALUE);
+        request.setHeader("X-Sharer-User-Id", String.valueOf(userId));
+        HttpResponse serverResponse = client.execute(request);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(serverResponse.getStatusLine().getStatusCode());
+        if (serverResponse.getEntity() == null) {
+            request.abort();
+            return response.build();
+        }
+        Header contentType = serverResponse.getEntity().getContentType();
+        if (contentType != null) {
+            response.contentType(MediaType.parseMediaType(contentType.getValue()));
+        }
+        return response.body(out -> {
+            try {
+                InputStream in = serverResponse.getEntity().getContent();
+                byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    out.flush();
+                }
+            } finally {
+                // поток бесконечный: close() дочитывал бы его до конца, поэтому соединение обрывается
+                request.abort();
+            }
+        });
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
 
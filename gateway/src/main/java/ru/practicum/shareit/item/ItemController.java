@@ -1,20 +1,32 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/items")
 @RequiredArgsConstructor
 @Validated
 public class ItemController {
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int MAX_AVAILABILITY_DAYS = 366;
+    private static final int MAX_MATCHING_REQUESTS = 100;
+
     private final ItemClient itemClient;
 
     @PostMapping
@@ -23,6 +35,13 @@ public class ItemController {
         return itemClient.createItem(userId, itemDto);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<Object> createItems(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                              @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE)
+                                              List<@Valid ItemDto> itemDtos) {
+        return itemClient.createItems(userId, itemDtos);
+    }
+
     @PatchMapping("{itemId}")
     public ResponseEntity<Object> updateItem(@RequestHeader("X-Sharer-User-Id") Long userId,
                                              @RequestBody ItemDto itemDto,
@@ -39,8 +58,31 @@ public class ItemController {
     @GetMapping
     public ResponseEntity<Object> getAllUsersItems(@RequestHeader("X-Sharer-User-Id") Long userId,
                                                    @RequestParam(value = "from", defaultValue = "0") Integer from,
-                                                   @RequestParam(value = "size", defaultValue = "10") Integer size) {
-        return itemClient.getAllUsersItems(userId, from, size);
+                                                   @RequestParam(value = "size", defaultValue = "10") Integer size,
+                                                   @RequestParam(required = false) String cursor) {
+        return itemClient.getAllUsersItems(userId, from, size, cursor);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> getAvailability(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                  @PathVariable Long itemId,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("from must be before to");
+        }
+        if (from.plusDays(MAX_AVAILABILITY_DAYS).isBefore(to)) {
+            throw new BadRequestException("Availability window must not exceed " + MAX_AVAILABILITY_DAYS + " days");
+        }
+        return itemClient.getAvailability(itemId, userId, from, to);
+    }
+
+    @GetMapping("/{itemId}/matching-requests")
+    public ResponseEntity<Object> getMatchingRequests(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                      @PathVariable Long itemId,
+                                                      @Positive @Max(MAX_MATCHING_REQUESTS)
+                                                      @RequestParam(defaultValue = "10") Integer size) {
+        return itemClient.getMatchingRequests(itemId, userId, size);
     }
 
     @GetMapping("/search")
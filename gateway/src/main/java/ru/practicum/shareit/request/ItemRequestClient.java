@@ -1,29 +1,48 @@
 package ru.practicum.shareit.request;
 
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.Map;
 
 @Service
 public class ItemRequestClient extends BaseClient {
     private static final String API_PREFIX = "/requests";
 
+    // потоки событий держат соединение с сервером минутами: у них свой пул, обычные запросы его не ждут
+    private final CloseableHttpClient streamClient;
+
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                             @Value("${shareit.gateway.request-stream.max-connections:1000}") int streamConnections,
+                             @Value("${shareit.gateway.request-stream.read-timeout:PT1M}") Duration streamReadTimeout) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
                         .requestFactory(HttpComponentsClientHttpRequestFactory::new)
                         .build()
         );
+        this.streamClient = HttpClients.custom()
+                .setMaxConnTotal(streamConnections)
+                .setMaxConnPerRoute(streamConnections)
+                // сервер шлёт heartbeat, поэтому долгая тишина означает потерянное соединение
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setSocketTimeout((int) streamReadTimeout.toMillis())
+                        .build())
+                .build();
     }
 
     public ResponseEntity<Object> createRequest(Long userId, ItemRequestDto itemRequestDto) {
@@ -38,11 +57,15 @@ public class ItemRequestClient extends BaseClient {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> getAllRequest(Long userId, Integer from, Integer size) {
+    public ResponseEntity<Object> getAllRequest(Long userId, Integer from, Integer size, String cursor) {
         Map<String, Object> parameters = Map.of(
                 "from", from,
                 "size", size
         );
-        return get("/all?from={from}&&size={size}", userId, parameters);
+        return getPage("/all?from={from}&size={size}", userId, parameters, cursor);
+    }
+
+    public ResponseEntity<StreamingResponseBody> streamRequests(Long userId) throws IOException {
+        return streamEvents(streamClient, "/stream", userId);
     }
 }
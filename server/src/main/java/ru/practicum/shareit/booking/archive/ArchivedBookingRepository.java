@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking.archive;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.ItemBookingDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+@Repository
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+    // последнее бронирование для вещей, у которых в горячей таблице его нет
+    @Query("select new ru.practicum.shareit.booking.dto.ItemBookingDto(b.item.id, b.id, b.booker.id, b.start, b.end) " +
+            "from ArchivedBooking b " +
+            "where b.item.id in :itemIds and b.status <> :excluded " +
+            "and b.start = (select max(l.start) from ArchivedBooking l " +
+            "where l.item.id = b.item.id and l.status <> :excluded)")
+    List<ItemBookingDto> findLastBookingsItems(Collection<Long> itemIds, BookingStatus excluded);
+
+    @Query("select count(b) > 0 from ArchivedBooking b " +
+            "where b.item.id = :itemId and b.booker.id = :bookerId and b.status = :status")
+    boolean existsByItemIdAndBookerIdAndStatus(Long itemId, Long bookerId, BookingStatus status);
+
+    @Query("select b from ArchivedBooking b " +
+            "join fetch b.item " +
+            "join fetch b.booker " +
+            "where b.id = :bookingId")
+    Optional<ArchivedBooking> findByIdWithItemAndBooker(Long bookingId);
+
+    @Query("select distinct b.item.id from ArchivedBooking b where b.booker.id = :bookerId")
+    List<Long> findItemIdsByBookerId(Long bookerId);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + BookingRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select b from ArchivedBooking b " +
+            "join fetch b.item i " +
+            "join fetch b.booker " +
+            "where i.ownerId = :ownerId " +
+            "order by b.start desc, b.id desc")
+    Stream<ArchivedBooking> streamAllBookingsOwner(Long ownerId);
+}
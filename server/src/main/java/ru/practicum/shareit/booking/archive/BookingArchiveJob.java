@@ -0,0 +1,64 @@
+package ru.practicum.shareit.booking.archive;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.scheduling.SchedulerLockService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Component
+@Slf4j
+public class BookingArchiveJob {
+    private static final String LOCK_NAME = "booking-archive";
+
+    private final BookingArchiveService archiveService;
+    private final SchedulerLockService lockService;
+    private final Duration hotPeriod;
+    private final int batchSize;
+    private final Duration lockTtl;
+    private final DistributionSummary rowsPerRun;
+
+    public BookingArchiveJob(BookingArchiveService archiveService,
+                             SchedulerLockService lockService,
+                             MeterRegistry meterRegistry,
+                             @Value("${shareit.bookings.archive.hot-period:P90D}") Duration hotPeriod,
+                             @Value("${shareit.bookings.archive.batch-size:1000}") int batchSize,
+                             @Value("${shareit.bookings.archive.lock-ttl:PT10M}") Duration lockTtl) {
+        this.archiveService = archiveService;
+        this.lockService = lockService;
+        this.hotPeriod = hotPeriod;
+        this.batchSize = batchSize;
+        this.lockTtl = lockTtl;
+        this.rowsPerRun = DistributionSummary.builder("booking.archive.rows")
+                .description("Bookings moved to the archive per run")
+                .register(meterRegistry);
+    }
+
+    // в горячей таблице остаются бронирования, закончившиеся не раньше hotPeriod назад, и все WAITING
+    @Scheduled(cron = "${shareit.bookings.archive.cron:0 0 4 * * *}")
+    public void archive() {
+        if (!lockService.tryLock(LOCK_NAME, lockTtl)) {
+            return;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(hotPeriod);
+            int total = 0;
+            int moved;
+            do {
+                moved = archiveService.moveBatch(cutoff, batchSize);
+                total += moved;
+            } while (moved == batchSize);
+            rowsPerRun.record(total);
+            if (total > 0) {
+                log.info("Archived {} bookings that ended before {}.", total, cutoff);
+            }
+        } finally {
+            lockService.unlock(LOCK_NAME);
+        }
+    }
+}
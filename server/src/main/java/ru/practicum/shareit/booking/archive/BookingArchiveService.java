@@ -0,0 +1,45 @@
+package ru.practicum.shareit.booking.archive;
+
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@AllArgsConstructor
+public class BookingArchiveService {
+    // HQL insert не принимает end в списке полей, а Spring Data не разбирает такой insert, поэтому SQL здесь
+    private static final String COPY_TO_ARCHIVE =
+            "insert into bookings_archive (id, start_date, end_date, item_id, booker_id, status) " +
+            "select b.id, b.start_date, b.end_date, b.item_id, b.booker_id, b.status from bookings b " +
+            "where b.id in :bookingIds";
+
+    private final BookingRepository bookingRepository;
+    private final EntityManager entityManager;
+
+    // переносит не больше batchSize бронирований, закончившихся раньше cutoff; возвращает число перенесённых
+    @Transactional
+    public int moveBatch(LocalDateTime cutoff, int batchSize) {
+        List<Long> bookingIds = bookingRepository.findEndedBeforeForUpdate(cutoff, BookingStatus.WAITING,
+                        PageRequest.ofSize(batchSize)).stream()
+                .map(Booking::getId)
+                .collect(Collectors.toList());
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+        // id сохраняются: ссылки на бронирование (события, указатели вещей) остаются верными
+        entityManager.createNativeQuery(COPY_TO_ARCHIVE)
+                .setParameter("bookingIds", bookingIds)
+                .executeUpdate();
+        bookingRepository.deleteAllByIdInBatch(bookingIds);
+        return bookingIds.size();
+    }
+}
@@ -2,16 +2,26 @@ package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.InputBookingDto;
 import ru.practicum.shareit.booking.dto.OutputBookingDto;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.query.BookingQuery;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.pagination.KeysetCursor;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/bookings")
@@ -35,21 +45,53 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<OutputBookingDto> findAllByUserId(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                  @RequestParam(defaultValue = "ALL") String state,
-                                                  @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                  @Positive @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<List<OutputBookingDto>> findAllByUserId(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                  @RequestParam(defaultValue = "ALL") String state,
+                                                                  @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                                  @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Long itemId,
+                                                                  @RequestParam(required = false)
+                                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime rangeStart,
+                                                                  @RequestParam(required = false)
+                                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime rangeEnd) {
         log.debug("GET-запрос на получения бронирований пользователя по идентификатору пользователя.");
-        return bookingService.findAllBookingsByUser(state, userId, from, size);
+        return findAll(BookingQuery.Role.BOOKER, userId, state, from, size, cursor, itemId, rangeStart, rangeEnd);
+    }
+
+    @GetMapping("/summary")
+    public Map<BookingState, Long> countByBookerId(@RequestHeader("X-Sharer-User-Id") Long userId) {
+        log.debug("GET-запрос на получение числа бронирований пользователя по состояниям.");
+        return bookingService.countBookings(BookingQuery.Role.BOOKER, userId);
     }
 
     @GetMapping("/owner")
-    public List<OutputBookingDto> findAllByOwnerId(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                   @RequestParam(defaultValue = "ALL") String state,
-                                                   @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                   @Positive @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<List<OutputBookingDto>> findAllByOwnerId(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                   @RequestParam(defaultValue = "ALL") String state,
+                                                                   @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                                   @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) Long itemId,
+                                                                   @RequestParam(required = false)
+                                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime rangeStart,
+                                                                   @RequestParam(required = false)
+                                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime rangeEnd) {
         log.debug("GET-запрос на получение бронирований владельца по идентификатору владельца.");
-        return bookingService.findAllBookingsByOwner(state, userId,  from, size);
+        return findAll(BookingQuery.Role.OWNER, userId, state, from, size, cursor, itemId, rangeStart, rangeEnd);
+    }
+
+    @GetMapping("/owner/summary")
+    public Map<BookingState, Long> countByOwnerId(@RequestHeader("X-Sharer-User-Id") Long userId) {
+        log.debug("GET-запрос на получение числа бронирований владельца по состояниям.");
+        return bookingService.countBookings(BookingQuery.Role.OWNER, userId);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportAllByOwnerId(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                   HttpServletResponse response) throws IOException {
+        log.debug("GET-запрос на выгрузку всех бронирований владельца.");
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        bookingService.exportAllBookingsByOwner(userId, response.getOutputStream());
     }
 
     @PatchMapping("/{bookingId}")
@@ -60,4 +102,24 @@ public class BookingController {
         return bookingService.approve(bookingId, userId, approved);
     }
 
-}
\ No newline at end of file
+    private ResponseEntity<List<OutputBookingDto>> findAll(BookingQuery.Role role, Long userId, String state,
+                                                           Integer from, Integer size, String cursor, Long itemId,
+                                                           LocalDateTime rangeStart, LocalDateTime rangeEnd) {
+        BookingQuery.BookingQueryBuilder query = BookingQuery.builder()
+                .role(role)
+                .state(BookingState.from(state))
+                .userId(userId)
+                .itemId(itemId)
+                .rangeStart(rangeStart)
+                .rangeEnd(rangeEnd)
+                .from(from)
+                .size(size);
+        if (cursor == null) {
+            return ResponseEntity.ok(bookingService.findAllBookings(query.build()));
+        }
+        return KeysetCursor.toResponse(bookingService.findAllBookings(query
+                        .cursor(KeysetCursor.decode(cursor, KeysetCursor.firstDescending()))
+                        .build()), size,
+                booking -> new KeysetCursor(booking.getStart(), booking.getId()));
+    }
+}
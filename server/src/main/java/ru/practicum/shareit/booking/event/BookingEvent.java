@@ -0,0 +1,47 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.*;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// запись outbox: снимок бронирования на момент изменения, без внешних ключей
+@Entity
+@Table(name = "booking_events")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class BookingEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+    @Column(name = "booker_id", nullable = false)
+    private Long bookerId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private BookingStatus status;
+    @Column(name = "start_date", nullable = false)
+    private LocalDateTime start;
+    @Column(name = "end_date", nullable = false)
+    private LocalDateTime end;
+    @Column(name = "created", nullable = false)
+    private LocalDateTime created;
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+    // не раньше этого времени: неудачная доставка откладывается
+    @Column(name = "next_attempt", nullable = false)
+    private LocalDateTime nextAttempt;
+    // попытки исчерпаны: событие хранится для разбора и не доставляется
+    @Column(name = "dead_at")
+    private LocalDateTime deadAt;
+    @Column(name = "last_error")
+    private String lastError;
+}
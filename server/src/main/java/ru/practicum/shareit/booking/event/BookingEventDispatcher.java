@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking.event;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class BookingEventDispatcher {
+    private final BookingEventOutbox outbox;
+    private final int batchSize;
+
+    public BookingEventDispatcher(BookingEventOutbox outbox,
+                                  @Value("${shareit.bookings.events.batch-size:100}") int batchSize) {
+        this.outbox = outbox;
+        this.batchSize = batchSize;
+    }
+
+    // разбирает outbox пачками, пока не кончатся готовые события: отложенные ждут своего времени
+    @Scheduled(fixedDelayString = "${shareit.bookings.events.dispatch-interval:PT1S}")
+    public void dispatch() {
+        boolean more;
+        do {
+            more = outbox.dispatchBatch(batchSize);
+        } while (more);
+    }
+}
@@ -0,0 +1,6 @@
+package ru.practicum.shareit.booking.event;
+
+// получает события не меньше одного раза, поэтому обработка должна быть идемпотентной
+public interface BookingEventListener {
+    void onBookingEvent(BookingEvent event);
+}
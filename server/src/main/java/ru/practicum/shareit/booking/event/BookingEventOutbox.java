@@ -0,0 +1,117 @@
+package ru.practicum.shareit.booking.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+@Slf4j
+public class BookingEventOutbox {
+    private static final int MAX_ERROR_LENGTH = 512;
+    // задержка растёт вдвое с каждой попыткой, но не дольше чем в 2^16 раз
+    private static final int MAX_BACKOFF_SHIFT = 16;
+
+    private final BookingEventRepository eventRepository;
+    private final List<BookingEventListener> listeners;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Counter dispatched;
+    private final Counter failed;
+    private final Counter deadLettered;
+    private final Timer lag;
+
+    public BookingEventOutbox(BookingEventRepository eventRepository,
+                              ObjectProvider<BookingEventListener> listeners,
+                              MeterRegistry meterRegistry,
+                              @Value("${shareit.bookings.events.max-attempts:10}") int maxAttempts,
+                              @Value("${shareit.bookings.events.retry-delay:PT5S}") Duration retryDelay) {
+        this.eventRepository = eventRepository;
+        this.listeners = listeners.orderedStream().collect(Collectors.toList());
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.dispatched = Counter.builder("booking.events.dispatched")
+                .description("Booking events delivered to all listeners")
+                .register(meterRegistry);
+        this.failed = Counter.builder("booking.events.failed")
+                .description("Failed booking event deliveries, retried after a delay")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("booking.events.dead-lettered")
+                .description("Booking events kept undelivered after max attempts")
+                .register(meterRegistry);
+        this.lag = Timer.builder("booking.events.lag")
+                .description("Time from booking change to event delivery")
+                .register(meterRegistry);
+    }
+
+    // вызывается в транзакции изменения бронирования: одна дополнительная вставка
+    public void publish(Booking booking) {
+        LocalDateTime now = LocalDateTime.now();
+        eventRepository.save(BookingEvent.builder()
+                .bookingId(booking.getId())
+                .itemId(booking.getItem().getId())
+                .ownerId(booking.getItem().getOwnerId())
+                .bookerId(booking.getBooker().getId())
+                .status(booking.getStatus())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .created(now)
+                .nextAttempt(now)
+                .build());
+    }
+
+    // доставляет готовые события по порядку, в пачке не больше одного события на бронирование.
+    // Неудачное откладывается с растущей задержкой и держит только следующие события своего бронирования;
+    // исчерпавшее попытки остаётся в outbox с отметкой dead_at. true - пачка полная, могут быть ещё события
+    @Transactional
+    public boolean dispatchBatch(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingEvent> events = eventRepository.findBatchForDispatch(now, PageRequest.ofSize(batchSize));
+        List<Long> done = new ArrayList<>();
+        for (BookingEvent event : events) {
+            try {
+                for (BookingEventListener listener : listeners) {
+                    listener.onBookingEvent(event);
+                }
+            } catch (RuntimeException e) {
+                failed.increment();
+                event.setAttempts(event.getAttempts() + 1);
+                event.setLastError(truncate(e.toString()));
+                if (event.getAttempts() < maxAttempts) {
+                    event.setNextAttempt(now.plus(retryDelay.multipliedBy(
+                            1L << Math.min(event.getAttempts() - 1, MAX_BACKOFF_SHIFT))));
+                    log.warn("Booking event {} delivery failed, attempt {}, next at {}.", event.getId(),
+                            event.getAttempts(), event.getNextAttempt(), e);
+                } else {
+                    event.setDeadAt(now);
+                    deadLettered.increment();
+                    log.error("Booking event {} dead-lettered after {} attempts.", event.getId(), event.getAttempts(), e);
+                }
+                continue;
+            }
+            lag.record(Duration.between(event.getCreated(), LocalDateTime.now()));
+            dispatched.increment();
+            done.add(event.getId());
+        }
+        if (!done.isEmpty()) {
+            eventRepository.deleteAllByIdInBatch(done);
+        }
+        return events.size() == batchSize;
+    }
+
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
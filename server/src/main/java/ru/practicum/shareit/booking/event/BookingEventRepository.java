@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking.event;
+
+import org.hibernate.LockOptions;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BookingEventRepository extends JpaRepository<BookingEvent, Long> {
+    // skip locked: несколько экземпляров разбирают outbox, не мешая друг другу.
+    // События одного бронирования доставляются по порядку: ждут, пока не доставлено более раннее
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "" + LockOptions.SKIP_LOCKED))
+    @Query("select e from BookingEvent e " +
+            "where e.deadAt is null and e.nextAttempt <= :time " +
+            "and not exists (select p.id from BookingEvent p " +
+            "where p.bookingId = e.bookingId and p.id < e.id and p.deadAt is null) " +
+            "order by e.id")
+    List<BookingEvent> findBatchForDispatch(LocalDateTime time, Pageable page);
+}
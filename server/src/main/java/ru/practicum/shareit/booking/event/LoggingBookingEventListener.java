@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class LoggingBookingEventListener implements BookingEventListener {
+    @Override
+    public void onBookingEvent(BookingEvent event) {
+        log.info("Booking {} of item {} (owner {}, booker {}) is {}.", event.getBookingId(), event.getItemId(),
+                event.getOwnerId(), event.getBookerId(), event.getStatus());
+    }
+}
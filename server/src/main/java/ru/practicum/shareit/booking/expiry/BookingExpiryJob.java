@@ -0,0 +1,71 @@
+package ru.practicum.shareit.booking.expiry;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.scheduling.SchedulerLockService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Component
+@Slf4j
+public class BookingExpiryJob {
+    private static final String LOCK_NAME = "booking-expiry";
+
+    private final BookingExpiryService expiryService;
+    private final SchedulerLockService lockService;
+    private final Duration grace;
+    private final int batchSize;
+    private final Duration lockTtl;
+    private final DistributionSummary rowsPerRun;
+    private final Timer runTimer;
+
+    public BookingExpiryJob(BookingExpiryService expiryService,
+                            SchedulerLockService lockService,
+                            MeterRegistry meterRegistry,
+                            @Value("${shareit.bookings.expiry.grace:PT1H}") Duration grace,
+                            @Value("${shareit.bookings.expiry.batch-size:500}") int batchSize,
+                            @Value("${shareit.bookings.expiry.lock-ttl:PT5M}") Duration lockTtl) {
+        this.expiryService = expiryService;
+        this.lockService = lockService;
+        this.grace = grace;
+        this.batchSize = batchSize;
+        this.lockTtl = lockTtl;
+        this.rowsPerRun = DistributionSummary.builder("booking.expiry.rows")
+                .description("WAITING bookings rejected per expiry run")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("booking.expiry.run")
+                .description("Duration of an expiry run on the node holding the lock")
+                .register(meterRegistry);
+    }
+
+    // заявки без решения через grace после начала отклоняются; работает только узел, занявший блокировку
+    @Scheduled(fixedDelayString = "${shareit.bookings.expiry.interval:PT1M}")
+    public void expire() {
+        if (!lockService.tryLock(LOCK_NAME, lockTtl)) {
+            return;
+        }
+        try {
+            runTimer.record(() -> {
+                LocalDateTime threshold = LocalDateTime.now().minus(grace);
+                int total = 0;
+                int expired;
+                do {
+                    expired = expiryService.expireBatch(threshold, batchSize);
+                    total += expired;
+                } while (expired == batchSize);
+                rowsPerRun.record(total);
+                if (total > 0) {
+                    log.info("Expired {} WAITING bookings that started before {}.", total, threshold);
+                }
+            });
+        } finally {
+            lockService.unlock(LOCK_NAME);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.shareit.booking.expiry;
+
+import lombok.AllArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.event.BookingEventOutbox;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.cache.ItemAvailabilityCache;
+import ru.practicum.shareit.item.pointer.BookingPointerService;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@AllArgsConstructor
+public class BookingExpiryService {
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final BookingIntervalIndex intervalIndex;
+    private final BookingPointerService pointerService;
+    private final ItemAvailabilityCache availabilityCache;
+    private final BookingEventOutbox eventOutbox;
+
+    // отклоняет не больше batchSize заявок, начавшихся раньше threshold; возвращает число отклонённых
+    @Transactional
+    public int expireBatch(LocalDateTime threshold, int batchSize) {
+        List<Booking> bookings = bookingRepository.findWaitingStartedBeforeForUpdate(BookingStatus.WAITING,
+                threshold, PageRequest.ofSize(batchSize));
+        if (bookings.isEmpty()) {
+            return 0;
+        }
+        Set<Long> itemIds = bookings.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet());
+        // владельцы нужны для событий, после update контекст будет очищен
+        itemRepository.findAllById(itemIds);
+        List<Long> bookingIds = bookings.stream()
+                .map(Booking::getId)
+                .collect(Collectors.toList());
+        int expired = bookingRepository.decideAllIfWaiting(bookingIds, BookingStatus.WAITING, BookingStatus.REJECTED);
+        for (Booking booking : bookings) {
+            booking.setStatus(BookingStatus.REJECTED);
+            intervalIndex.remove(booking.getItem().getId(), booking.getId());
+            eventOutbox.publish(booking);
+        }
+        itemIds.forEach(availabilityCache::evict);
+        pointerService.refresh(itemIds);
+        return expired;
+    }
+}
@@ -0,0 +1,141 @@
+package ru.practicum.shareit.booking.interval;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.NotAvailableException;
+import ru.practicum.shareit.util.TransactionHelper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+@Component
+@Slf4j
+public class BookingIntervalIndex {
+    public static final Set<BookingStatus> ACTIVE_STATUSES = Set.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, ItemIntervals> items;
+
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                @Value("${shareit.bookings.interval-index.max-items:100000}") long maxItems,
+                                @Value("${shareit.bookings.interval-index.ttl:PT1H}") Duration ttl) {
+        this.bookingRepository = bookingRepository;
+        this.items = Caffeine.newBuilder()
+                .maximumSize(maxItems)
+                .expireAfterAccess(ttl)
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Map<Long, List<BookingInterval>> intervals = bookingRepository
+                .findActiveIntervals(ACTIVE_STATUSES, LocalDateTime.now()).stream()
+                .collect(Collectors.groupingBy(BookingInterval::getItemId));
+        intervals.forEach((itemId, itemIntervals) -> items.put(itemId, new ItemIntervals(itemIntervals)));
+        log.info("Booking interval index warmed up for {} items.", intervals.size());
+    }
+
+    // бросает NotAvailableException, если окно пересекается с бронированием в одном из статусов
+    public void checkAvailable(Long itemId, LocalDateTime start, LocalDateTime end, Long excludedId,
+                               Collection<BookingStatus> statuses) {
+        BookingInterval conflict = intervals(itemId).findOverlapping(start, end, excludedId, statuses);
+        if (conflict == null) {
+            return;
+        }
+        // индекс мог отстать от другого узла - перед отказом сверяемся с таблицей
+        if (!bookingRepository.existsOverlapping(itemId, start, end, excludedId != null ? excludedId : 0L, statuses)) {
+            items.invalidate(itemId);
+            return;
+        }
+        throw new NotAvailableException(String.format("Item with id = %d is already booked from %s to %s.",
+                itemId, conflict.getStart(), conflict.getEnd()));
+    }
+
+    public void put(BookingInterval interval) {
+        TransactionHelper.afterCommit(() -> {
+            ItemIntervals itemIntervals = items.getIfPresent(interval.getItemId());
+            if (itemIntervals != null) {
+                itemIntervals.put(interval);
+            }
+        });
+    }
+
+    public void remove(Long itemId, Long bookingId) {
+        TransactionHelper.afterCommit(() -> {
+            ItemIntervals itemIntervals = items.getIfPresent(itemId);
+            if (itemIntervals != null) {
+                itemIntervals.remove(bookingId);
+            }
+        });
+    }
+
+    private ItemIntervals intervals(Long itemId) {
+        return items.get(itemId, id -> new ItemIntervals(bookingRepository
+                .findActiveIntervalsByItem(id, ACTIVE_STATUSES, LocalDateTime.now())));
+    }
+
+    // интервалы одной вещи, отсортированные по (start, id); самый длинный из них ограничивает просмотр влево
+    private static final class ItemIntervals {
+        private final NavigableSet<BookingInterval> byStart = new TreeSet<>(Comparator
+                .comparing(BookingInterval::getStart)
+                .thenComparing(BookingInterval::getId));
+        private final Map<Long, BookingInterval> byId = new HashMap<>();
+        // длины интервалов с числом повторов: максимум уменьшается, когда удалён последний самый длинный
+        private final TreeMap<Duration, Integer> lengths = new TreeMap<>();
+
+        private ItemIntervals(Collection<BookingInterval> intervals) {
+            intervals.forEach(this::put);
+        }
+
+        private synchronized BookingInterval findOverlapping(LocalDateTime start, LocalDateTime end, Long excludedId,
+                                                             Collection<BookingStatus> statuses) {
+            Duration maxLength = lengths.isEmpty() ? Duration.ZERO : lengths.lastKey();
+            BookingInterval from = new BookingInterval(null, Long.MIN_VALUE, start.minus(maxLength), null, null);
+            BookingInterval to = new BookingInterval(null, Long.MIN_VALUE, end, null, null);
+            for (BookingInterval interval : byStart.subSet(from, false, to, false)) {
+                if (interval.overlaps(start, end) && !Objects.equals(interval.getId(), excludedId)
+                        && statuses.contains(interval.getStatus())) {
+                    return interval;
+                }
+            }
+            return null;
+        }
+
+        private synchronized void put(BookingInterval interval) {
+            remove(interval.getId());
+            byStart.add(interval);
+            byId.put(interval.getId(), interval);
+            lengths.merge(length(interval), 1, Integer::sum);
+        }
+
+        private synchronized void remove(Long bookingId) {
+            BookingInterval interval = byId.remove(bookingId);
+            if (interval != null) {
+                byStart.remove(interval);
+                lengths.computeIfPresent(length(interval), (length, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+
+        private static Duration length(BookingInterval interval) {
+            return Duration.between(interval.getStart(), interval.getEnd());
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package ru.practicum.shareit.booking.mapper;
 
+import ru.practicum.shareit.booking.dto.ItemBookingDto;
 import ru.practicum.shareit.booking.dto.OutputBookingDto;
 import ru.practicum.shareit.booking.dto.ShortItemBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.BookingPointer;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
 import java.util.List;
@@ -36,4 +38,22 @@ public class BookingMapper {
                 .end(booking.getEnd())
                 .build();
     }
+
+    public static ShortItemBookingDto toItemBookingDto(ItemBookingDto booking) {
+        return ShortItemBookingDto.builder()
+                .id(booking.getId())
+                .bookerId(booking.getBookerId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .build();
+    }
+
+    public static ShortItemBookingDto toItemBookingDto(BookingPointer booking) {
+        return ShortItemBookingDto.builder()
+                .id(booking.getId())
+                .bookerId(booking.getBookerId())
+                .start(booking.getStart())
+                .end(booking.getEnd())
+                .build();
+    }
 }
\ No newline at end of file
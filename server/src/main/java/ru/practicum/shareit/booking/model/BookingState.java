@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.model;
+
+import ru.practicum.shareit.exception.BadRequestException;
+
+public enum BookingState {
+    // Все
+    ALL,
+    // Текущие
+    CURRENT,
+    // Будущие
+    FUTURE,
+    // Завершенные
+    PAST,
+    // Отклоненные
+    REJECTED,
+    // Ожидающие подтверждения
+    WAITING;
+
+    public static BookingState from(String stringState) {
+        for (BookingState state : values()) {
+            if (state.name().equalsIgnoreCase(stringState)) {
+                return state;
+            }
+        }
+        throw new BadRequestException(String.format("Unknown state: %s", stringState));
+    }
+}
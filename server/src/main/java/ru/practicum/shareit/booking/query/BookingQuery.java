@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking.query;
+
+import lombok.Builder;
+import lombok.Getter;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.pagination.KeysetCursor;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Builder
+public class BookingQuery {
+    private final Role role;
+    private final BookingState state;
+    private final Long userId;
+    // необязательные фильтры
+    private final Long itemId;
+    private final LocalDateTime rangeStart;
+    private final LocalDateTime rangeEnd;
+    // либо from/size, либо cursor/size
+    private final Integer from;
+    private final Integer size;
+    private final KeysetCursor cursor;
+
+    public enum Role {
+        BOOKER,
+        OWNER
+    }
+}
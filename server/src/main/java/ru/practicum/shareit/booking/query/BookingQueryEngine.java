@@ -0,0 +1,211 @@
+package ru.practicum.shareit.booking.query;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.archive.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Component
+public class BookingQueryEngine {
+    // условие и статус для каждого состояния; новое состояние - новая строка здесь.
+    // archived - в состояние попадают завершённые бронирования, их ищем и в архиве
+    private static final Map<BookingState, StateFilter> STATE_FILTERS = new EnumMap<>(Map.of(
+            BookingState.ALL, new StateFilter(null, null, true),
+            BookingState.CURRENT, new StateFilter("b.start < :now and b.end > :now", null, false),
+            BookingState.PAST, new StateFilter("b.end < :now", null, true),
+            BookingState.FUTURE, new StateFilter("b.start > :now", null, false),
+            BookingState.WAITING, new StateFilter("b.start > :now and b.status = :status", BookingStatus.WAITING,
+                    false),
+            BookingState.REJECTED, new StateFilter("b.status = :status", BookingStatus.REJECTED, true)));
+    private static final Comparator<Booking> NEWEST_FIRST = Comparator.comparing(Booking::getStart)
+            .thenComparing(Booking::getId)
+            .reversed();
+
+    private final EntityManager entityManager;
+    // один текст запроса на форму: Hibernate кэширует план по строке, Postgres - подготовленный запрос
+    private final Map<Shape, String> queries = new ConcurrentHashMap<>();
+
+    public BookingQueryEngine(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public List<Booking> find(BookingQuery query, LocalDateTime now) {
+        Shape shape = new Shape(query.getRole(), query.getState(), query.getItemId() != null,
+                query.getRangeStart() != null, query.getRangeEnd() != null, query.getCursor() != null, false);
+        int offset = shape.isKeyset() ? 0 : query.getFrom() / query.getSize() * query.getSize();
+        if (!STATE_FILTERS.get(shape.getState()).isArchived()) {
+            return createQuery(shape, Booking.class, query, now)
+                    .setFirstResult(offset)
+                    .setMaxResults(query.getSize())
+                    .getResultList();
+        }
+        // обе таблицы отсортированы одинаково: берём из каждой первые offset + size и сливаем
+        List<Booking> hot = createQuery(shape, Booking.class, query, now)
+                .setMaxResults(offset + query.getSize())
+                .getResultList();
+        List<Booking> archived = createQuery(shape.toArchive(), ArchivedBooking.class, query, now)
+                .setMaxResults(offset + query.getSize())
+                .getResultStream()
+                .map(ArchivedBooking::toBooking)
+                .collect(Collectors.toList());
+        List<Booking> merged = new ArrayList<>(hot.size() + archived.size());
+        int i = 0;
+        int j = 0;
+        while (merged.size() < offset + query.getSize() && (i < hot.size() || j < archived.size())) {
+            if (j == archived.size() || i < hot.size() && NEWEST_FIRST.compare(hot.get(i), archived.get(j)) <= 0) {
+                merged.add(hot.get(i++));
+            } else {
+                merged.add(archived.get(j++));
+            }
+        }
+        return merged.subList(Math.min(offset, merged.size()), merged.size());
+    }
+
+    // число бронирований по всем состояниям: один запрос с условной агрегацией к каждой таблице
+    public Map<BookingState, Long> count(BookingQuery.Role role, Long userId, LocalDateTime now) {
+        Map<BookingState, Long> counts = new EnumMap<>(BookingState.class);
+        for (boolean archive : new boolean[]{false, true}) {
+            List<BookingState> states = STATE_FILTERS.keySet().stream()
+                    .filter(state -> !archive || STATE_FILTERS.get(state).isArchived())
+                    .collect(Collectors.toList());
+            TypedQuery<Object[]> typedQuery = entityManager.createQuery(countQuery(role, states, archive),
+                    Object[].class);
+            typedQuery.setParameter("userId", userId);
+            for (BookingState state : states) {
+                StateFilter filter = STATE_FILTERS.get(state);
+                if (filter.usesNow()) {
+                    typedQuery.setParameter("now", now);
+                }
+                if (filter.getStatus() != null) {
+                    typedQuery.setParameter(statusParameter(state), filter.getStatus());
+                }
+            }
+            Object[] row = typedQuery.getSingleResult();
+            for (int i = 0; i < states.size(); i++) {
+                long count = row[i] != null ? ((Number) row[i]).longValue() : 0;
+                counts.merge(states.get(i), count, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    private <T> TypedQuery<T> createQuery(Shape shape, Class<T> type, BookingQuery query, LocalDateTime now) {
+        StateFilter filter = STATE_FILTERS.get(shape.getState());
+        TypedQuery<T> typedQuery = entityManager.createQuery(queries.computeIfAbsent(shape, this::build), type);
+        typedQuery.setParameter("userId", query.getUserId());
+        if (filter.usesNow()) {
+            typedQuery.setParameter("now", now);
+        }
+        if (filter.getStatus() != null) {
+            typedQuery.setParameter("status", filter.getStatus());
+        }
+        if (shape.isItem()) {
+            typedQuery.setParameter("itemId", query.getItemId());
+        }
+        if (shape.isRangeStart()) {
+            typedQuery.setParameter("rangeStart", query.getRangeStart());
+        }
+        if (shape.isRangeEnd()) {
+            typedQuery.setParameter("rangeEnd", query.getRangeEnd());
+        }
+        if (shape.isKeyset()) {
+            typedQuery.setParameter("cursorStart", query.getCursor().getTime());
+            typedQuery.setParameter("cursorId", query.getCursor().getId());
+        }
+        return typedQuery;
+    }
+
+    private String build(Shape shape) {
+        StringBuilder jpql = new StringBuilder("select b from ")
+                .append(shape.isArchive() ? "ArchivedBooking" : "Booking")
+                .append(" b join fetch b.item i join fetch b.booker ");
+        jpql.append(userCondition(shape.getRole()));
+        StateFilter filter = STATE_FILTERS.get(shape.getState());
+        if (filter.getPredicate() != null) {
+            jpql.append(" and ").append(filter.getPredicate());
+        }
+        if (shape.isItem()) {
+            jpql.append(" and b.item.id = :itemId");
+        }
+        // бронирования, пересекающиеся с заданным периодом
+        if (shape.isRangeStart()) {
+            jpql.append(" and b.end > :rangeStart");
+        }
+        if (shape.isRangeEnd()) {
+            jpql.append(" and b.start < :rangeEnd");
+        }
+        // b.start <= :cursorStart даёт диапазон по индексу (..., start_date, id), условие с or - нет
+        if (shape.isKeyset()) {
+            jpql.append(" and b.start <= :cursorStart");
+            jpql.append(" and (b.start < :cursorStart or (b.start = :cursorStart and b.id < :cursorId))");
+        }
+        return jpql.append(" order by b.start desc, b.id desc").toString();
+    }
+
+    private String countQuery(BookingQuery.Role role, List<BookingState> states, boolean archive) {
+        String columns = states.stream()
+                .map(state -> {
+                    String predicate = STATE_FILTERS.get(state).getPredicate();
+                    return predicate == null
+                            ? "count(b)"
+                            : "sum(case when " + predicate.replace(":status", ":" + statusParameter(state))
+                            + " then 1 else 0 end)";
+                })
+                .collect(Collectors.joining(", "));
+        return "select " + columns + " from " + (archive ? "ArchivedBooking" : "Booking") + " b join b.item i "
+                + userCondition(role);
+    }
+
+    private static String userCondition(BookingQuery.Role role) {
+        return role == BookingQuery.Role.OWNER ? "where i.ownerId = :userId" : "where b.booker.id = :userId";
+    }
+
+    // в одном запросе несколько состояний со своим статусом, параметр у каждого свой
+    private static String statusParameter(BookingState state) {
+        return state.name().toLowerCase() + "Status";
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class StateFilter {
+        private final String predicate;
+        private final BookingStatus status;
+        private final boolean archived;
+
+        private boolean usesNow() {
+            return predicate != null && predicate.contains(":now");
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class Shape {
+        private final BookingQuery.Role role;
+        private final BookingState state;
+        private final boolean item;
+        private final boolean rangeStart;
+        private final boolean rangeEnd;
+        private final boolean keyset;
+        private final boolean archive;
+
+        private Shape toArchive() {
+            return new Shape(role, state, item, rangeStart, rangeEnd, keyset, true);
+        }
+    }
+}
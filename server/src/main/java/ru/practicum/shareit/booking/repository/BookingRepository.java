@@ -1,95 +1,133 @@
 package ru.practicum.shareit.booking.repository;
 
+import org.hibernate.LockOptions;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.ItemBookingDto;
+import ru.practicum.shareit.booking.interval.BookingInterval;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    int EXPORT_FETCH_SIZE = 500;
+
     @Modifying
     @Query("UPDATE Booking b " +
             "SET b.status = :status  " +
             "WHERE b.id = :bookingId")
     void update(BookingStatus status, Long bookingId);
 
-    //запросы по юзеру
-
-    List<Booking> findAllByBookerIdOrderByStartDesc(long id, Pageable page);
-
-    List<Booking> findAllByBookerIdAndStatusIsOrderByStartDesc(Long id, BookingStatus status, Pageable page);
-
-    List<Booking> findAllByBookerIdAndEndIsAfterAndStartIsBeforeOrderByStartDesc(Long id,
-                                                                                 LocalDateTime end,
-                                                                                 LocalDateTime start,
-                                                                                 Pageable page);
-
-    List<Booking> findAllByBookerIdAndEndIsBeforeOrderByStartDesc(Long id, LocalDateTime time, Pageable page);
-
-    List<Booking> findAllByBookerIdAndStartIsAfterOrderByStartDesc(Long id, LocalDateTime time, Pageable page);
-
-    List<Booking> findAllByBookerIdAndStartIsAfterAndStatusIsOrderByStartDesc(Long bookerId,
-                                                                              LocalDateTime start,
-                                                                              BookingStatus status,
-                                                                              Pageable page);
-
-    //запросы по хозяину
-    @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
-            "where i.ownerId = :ownerId " +
-            "order by b.start desc")
-    List<Booking> findAllBookingsOwner(Long ownerId, Pageable page);
-
-    @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
-            "where i.ownerId = :ownerId " +
-            "and :time between b.start and b.end " +
-            "order by b.start desc")
-    List<Booking> findAllCurrentBookingsOwner(Long ownerId, LocalDateTime time, Pageable page);
-
-    @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
-            "where i.ownerId = :ownerId " +
-            "and b.end < :time " +
-            "order by b.start desc")
-    List<Booking> findAllPastBookingsOwner(Long ownerId, LocalDateTime time, Pageable page);
-
-    @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
-            "where i.ownerId = :ownerId " +
-            "and b.start > :time " +
-            "order by b.start desc")
-    List<Booking> findAllFutureBookingsOwner(Long ownerId, LocalDateTime time, Pageable page);
+    // решение по бронированию одним условным update: только владелец вещи и только из WAITING
+    @Modifying(clearAutomatically = true)
+    @Query("update Booking b set b.status = :status " +
+            "where b.id = :bookingId and b.status = :waiting " +
+            "and exists (select i.id from Item i where i.id = b.item.id and i.ownerId = :ownerId)")
+    int decideIfWaiting(Long bookingId, Long ownerId, BookingStatus waiting, BookingStatus status);
+
+    // то же для подтверждения, плюс нет пересечения с уже подтверждённым бронированием
+    @Modifying(clearAutomatically = true)
+    @Query("update Booking b set b.status = :status " +
+            "where b.id = :bookingId and b.status = :waiting " +
+            "and exists (select i.id from Item i where i.id = b.item.id and i.ownerId = :ownerId) " +
+            "and not exists (select o.id from Booking o where o.item.id = b.item.id and o.id <> b.id " +
+            "and o.status = :status and o.start < b.end and o.end > b.start)")
+    int approveIfWaiting(Long bookingId, Long ownerId, BookingStatus waiting, BookingStatus status);
+
+    // просроченные заявки: начало прошло, решения нет; занятые другим узлом строки пропускаем
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "" + LockOptions.SKIP_LOCKED))
+    @Query("select b from Booking b where b.status = :waiting and b.start < :time order by b.start, b.id")
+    List<Booking> findWaitingStartedBeforeForUpdate(BookingStatus waiting, LocalDateTime time, Pageable page);
+
+    // завершившиеся давно: кандидаты на перенос в архив
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "" + LockOptions.SKIP_LOCKED))
+    @Query("select b from Booking b where b.end < :time and b.status <> :waiting order by b.end, b.id")
+    List<Booking> findEndedBeforeForUpdate(LocalDateTime time, BookingStatus waiting, Pageable page);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Booking b set b.status = :status where b.id in :bookingIds and b.status = :waiting")
+    int decideAllIfWaiting(Collection<Long> bookingIds, BookingStatus waiting, BookingStatus status);
 
     @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
-            "where i.ownerId = :ownerId " +
-            "and b.start > :time and b.status = :status " +
-            "order by b.start desc")
-    List<Booking> findAllWaitingBookingsOwner(Long ownerId, LocalDateTime time, BookingStatus status, Pageable page);
+            "join fetch b.item i " +
+            "join fetch b.booker " +
+            "where b.id = :bookingId")
+    Optional<Booking> findByIdWithItemAndBooker(Long bookingId);
 
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
     @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
+            "join fetch b.item i " +
+            "join fetch b.booker " +
             "where i.ownerId = :ownerId " +
-            "and b.status = :status " +
-            "order by b.start desc")
-    List<Booking> findAllRejectedBookingsOwner(Long ownerId, BookingStatus status, Pageable page);
+            "order by b.start desc, b.id desc")
+    Stream<Booking> streamAllBookingsOwner(Long ownerId);
+
+    // интервалы для проверки пересечений
+    @Query("select new ru.practicum.shareit.booking.interval.BookingInterval(b.item.id, b.id, b.start, b.end, b.status) " +
+            "from Booking b " +
+            "where b.status in :statuses and b.end > :time")
+    List<BookingInterval> findActiveIntervals(Collection<BookingStatus> statuses, LocalDateTime time);
+
+    @Query("select new ru.practicum.shareit.booking.interval.BookingInterval(b.item.id, b.id, b.start, b.end, b.status) " +
+            "from Booking b " +
+            "where b.item.id = :itemId and b.status in :statuses and b.end > :time")
+    List<BookingInterval> findActiveIntervalsByItem(Long itemId, Collection<BookingStatus> statuses, LocalDateTime time);
+
+    // занятость вещи в окне, по возрастанию начала
+    @Query("select new ru.practicum.shareit.booking.interval.BookingInterval(b.item.id, b.id, b.start, b.end, b.status) " +
+            "from Booking b " +
+            "where b.item.id = :itemId and b.status <> :excluded and b.start < :to and b.end > :from " +
+            "order by b.start, b.id")
+    List<BookingInterval> findIntervalsInWindow(Long itemId, BookingStatus excluded, LocalDateTime from, LocalDateTime to);
+
+    @Query("select count(b) > 0 from Booking b " +
+            "where b.item.id = :itemId and b.id <> :excludedId and b.status in :statuses " +
+            "and b.start < :end and b.end > :start")
+    boolean existsOverlapping(Long itemId, LocalDateTime start, LocalDateTime end, Long excludedId,
+                              Collection<BookingStatus> statuses);
 
     // для item
-    @Query("select b from Booking b " +
-            "inner join Item i on b.item.id = i.id " +
-            "where i.id = :itemId " +
-            "order by b.start desc")
-    List<Booking> findAllBookingsItem(Long itemId);
+    @Query("select new ru.practicum.shareit.booking.dto.ItemBookingDto(b.item.id, b.id, b.booker.id, b.start, b.end) " +
+            "from Booking b " +
+            "where b.item.id in :itemIds and b.status <> :excluded and b.start < :time " +
+            "and b.start = (select max(l.start) from Booking l " +
+            "where l.item.id = b.item.id and l.status <> :excluded and l.start < :time)")
+    List<ItemBookingDto> findLastBookingsItems(Collection<Long> itemIds, BookingStatus excluded, LocalDateTime time);
+
+    @Query("select new ru.practicum.shareit.booking.dto.ItemBookingDto(b.item.id, b.id, b.booker.id, b.start, b.end) " +
+            "from Booking b " +
+            "where b.item.id in :itemIds and b.status <> :excluded and b.start > :time " +
+            "and b.start = (select min(n.start) from Booking n " +
+            "where n.item.id = b.item.id and n.status <> :excluded and n.start > :time)")
+    List<ItemBookingDto> findNextBookingsItems(Collection<Long> itemIds, BookingStatus excluded, LocalDateTime time);
+
+    // бронирования пользователя удаляются вместе с ним каскадом
+    @Query("select distinct b.item.id from Booking b where b.booker.id = :bookerId")
+    List<Long> findItemIdsByBookerId(Long bookerId);
 
     //для comment
-
+    // условия по столбцам bookings: производный запрос соединял items и users и не использовал индекс
+    @Query("select b from Booking b " +
+            "where b.item.id = :itemId and b.booker.id = :bookerId and b.status = :status and b.end < :time")
     List<Booking> findAllByItemIdAndBookerIdAndStatusIsAndEndIsBefore(Long itemId,
                                                                       Long bookerId,
                                                                       BookingStatus status,
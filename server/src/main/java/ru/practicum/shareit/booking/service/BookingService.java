@@ -3,8 +3,13 @@ package ru.practicum.shareit.booking.service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.InputBookingDto;
 import ru.practicum.shareit.booking.dto.OutputBookingDto;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.query.BookingQuery;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 
 public interface BookingService {
     @Transactional
@@ -14,10 +19,13 @@ public interface BookingService {
     public OutputBookingDto findBookingById(Long bookingId, Long userId);
 
     @Transactional(readOnly = true)
-    public List<OutputBookingDto> findAllBookingsByUser(String state, Long userId, Integer from, Integer size);
+    public List<OutputBookingDto> findAllBookings(BookingQuery query);
 
     @Transactional(readOnly = true)
-    public List<OutputBookingDto> findAllBookingsByOwner(String state, Long ownerId, Integer from, Integer size);
+    public Map<BookingState, Long> countBookings(BookingQuery.Role role, Long userId);
+
+    @Transactional(readOnly = true)
+    public void exportAllBookingsByOwner(Long ownerId, OutputStream out) throws IOException;
 
     @Transactional
     public OutputBookingDto approve(long bookingId, long userId, Boolean approve);
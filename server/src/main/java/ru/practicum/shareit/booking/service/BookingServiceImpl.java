@@ -1,34 +1,58 @@
 package ru.practicum.shareit.booking.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.AllArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.archive.ArchivedBooking;
+import ru.practicum.shareit.booking.archive.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.dto.ItemBookingDto;
+import ru.practicum.shareit.booking.event.BookingEventOutbox;
 import ru.practicum.shareit.booking.dto.OutputBookingDto;
 import ru.practicum.shareit.booking.dto.InputBookingDto;
+import ru.practicum.shareit.booking.interval.BookingInterval;
+import ru.practicum.shareit.booking.interval.BookingIntervalIndex;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.query.BookingQuery;
+import ru.practicum.shareit.booking.query.BookingQueryEngine;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.*;
+import ru.practicum.shareit.item.cache.ItemAvailabilityCache;
+import ru.practicum.shareit.item.lock.ItemLockService;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.item.pointer.BookingPointerService;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
-import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 @AllArgsConstructor
 public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archiveRepository;
+    private final BookingQueryEngine queryEngine;
     private final UserServiceImpl userService;
-    private final ItemServiceImpl itemService;
+    private final BookingPointerService pointerService;
+    private final BookingIntervalIndex intervalIndex;
+    private final ItemLockService itemLockService;
+    private final ItemAvailabilityCache availabilityCache;
+    private final BookingEventOutbox eventOutbox;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
 
     @Override
     public OutputBookingDto create(InputBookingDto bookingDtoShort, long bookerId) {
@@ -39,11 +63,13 @@ public class BookingServiceImpl implements BookingService {
                             bookingDtoShort.getStart(), bookingDtoShort.getEnd()));
         }
         User booker = UserMapper.toUser(userService.findUserById(bookerId));
-        Item item = ItemMapper.toItem(itemService.findItemById(bookingDtoShort.getItemId(), bookerId));
-        if (itemService.findOwnerId(item.getId()) == bookerId) {
+        Item item = itemLockService.lock(bookingDtoShort.getItemId());
+        if (item.getOwnerId() == bookerId) {
             throw new OperationAccessException("The owner cannot be a booker.");
         }
         if (item.getAvailable()) {
+            intervalIndex.checkAvailable(item.getId(), bookingDtoShort.getStart(), bookingDtoShort.getEnd(), null,
+                    BookingIntervalIndex.ACTIVE_STATUSES);
             Booking booking = Booking.builder()
                     .start(bookingDtoShort.getStart())
                     .end(bookingDtoShort.getEnd())
@@ -51,7 +77,19 @@ public class BookingServiceImpl implements BookingService {
                     .booker(booker)
                     .status(BookingStatus.WAITING)
                     .build();
-            return BookingMapper.toBookingDto(bookingRepository.save(booking));
+            try {
+                booking = bookingRepository.save(booking);
+            } catch (DataIntegrityViolationException e) {
+                throw new NotAvailableException(String.format("Item with id = %d is already booked for this period.",
+                        item.getId()));
+            }
+            intervalIndex.put(new BookingInterval(item.getId(), booking.getId(), booking.getStart(), booking.getEnd(),
+                    booking.getStatus()));
+            pointerService.onBookingChanged(new ItemBookingDto(item.getId(), booking.getId(), bookerId,
+                    booking.getStart(), booking.getEnd()), booking.getStatus());
+            availabilityCache.evict(item.getId());
+            eventOutbox.publish(booking);
+            return BookingMapper.toBookingDto(booking);
         } else {
             throw new NotAvailableException(String.format("Item with id = %d is not available.", item.getId()));
         }
@@ -59,7 +97,9 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public OutputBookingDto findBookingById(Long bookingId, Long userId) {
-        Booking booking = bookingRepository.findById(bookingId)
+        // вещь и бронирующий нужны для проверки доступа и ответа: загружаем их тем же запросом
+        Booking booking = bookingRepository.findByIdWithItemAndBooker(bookingId)
+                .or(() -> archiveRepository.findByIdWithItemAndBooker(bookingId).map(ArchivedBooking::toBooking))
                 .orElseThrow(() -> new NotFoundException(String.format("Booking with id = %d not found.", bookingId)));
         if (booking.getBooker().getId().equals(userId) || booking.getItem().getOwnerId().equals(userId)) {
             return BookingMapper.toBookingDto(booking);
@@ -69,76 +109,87 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<OutputBookingDto> findAllBookingsByUser(String state, Long userId, Integer from, Integer size) {
-        userService.findUserById(userId);
-        Pageable page = PageRequest.of(from / size, size);
-        LocalDateTime now = LocalDateTime.now();
-        switch (state) {
-            case "ALL":
-                return BookingMapper.toBookingDto(bookingRepository.findAllByBookerIdOrderByStartDesc(userId, page));
-            case "CURRENT":
-                return BookingMapper.toBookingDto(bookingRepository
-                        .findAllByBookerIdAndEndIsAfterAndStartIsBeforeOrderByStartDesc(userId, now, now, page));
-            case "PAST":
-                return BookingMapper.toBookingDto(bookingRepository
-                        .findAllByBookerIdAndEndIsBeforeOrderByStartDesc(userId, now, page));
-            case "FUTURE":
-                return BookingMapper.toBookingDto(bookingRepository
-                        .findAllByBookerIdAndStartIsAfterOrderByStartDesc(userId, now, page));
-            case "WAITING":
-                return BookingMapper.toBookingDto(bookingRepository
-                        .findAllByBookerIdAndStartIsAfterAndStatusIsOrderByStartDesc(userId, now,
-                                BookingStatus.WAITING, page));
-            case "REJECTED":
-                return BookingMapper.toBookingDto(bookingRepository
-                        .findAllByBookerIdAndStatusIsOrderByStartDesc(userId, BookingStatus.REJECTED, page));
-
+    public List<OutputBookingDto> findAllBookings(BookingQuery query) {
+        userService.findUserById(query.getUserId());
+        if (query.getRangeStart() != null && query.getRangeEnd() != null
+                && !query.getRangeStart().isBefore(query.getRangeEnd())) {
+            throw new TimeDataException(String.format("Invalid period start = %s  end = %s",
+                    query.getRangeStart(), query.getRangeEnd()));
         }
-        throw new BadRequestException(String.format("Unknown state: %s", state));
+        return BookingMapper.toBookingDto(queryEngine.find(query, LocalDateTime.now()));
+    }
+
+    @Override
+    public Map<BookingState, Long> countBookings(BookingQuery.Role role, Long userId) {
+        userService.findUserById(userId);
+        return queryEngine.count(role, userId, LocalDateTime.now());
     }
 
     @Override
-    public List<OutputBookingDto> findAllBookingsByOwner(String state, Long ownerId, Integer from, Integer size) {
+    public void exportAllBookingsByOwner(Long ownerId, OutputStream out) throws IOException {
         userService.findUserById(ownerId);
-        Pageable page = PageRequest.of(from / size, size);
-        LocalDateTime now = LocalDateTime.now();
-        switch (state) {
-            case "ALL":
-                return BookingMapper.toBookingDto(bookingRepository.findAllBookingsOwner(ownerId, page));
-            case "CURRENT":
-                return BookingMapper.toBookingDto(bookingRepository.findAllCurrentBookingsOwner(ownerId, now, page));
-            case "PAST":
-                return BookingMapper.toBookingDto(bookingRepository.findAllPastBookingsOwner(ownerId, now, page));
-            case "FUTURE":
-                return BookingMapper.toBookingDto(bookingRepository.findAllFutureBookingsOwner(ownerId, now, page));
-            case "WAITING":
-                return BookingMapper.toBookingDto(bookingRepository
-                        .findAllWaitingBookingsOwner(ownerId, now, BookingStatus.WAITING, page));
-            case "REJECTED":
-                return BookingMapper.toBookingDto(bookingRepository
-                        .findAllRejectedBookingsOwner(ownerId, BookingStatus.REJECTED, page));
+        ObjectWriter writer = objectMapper.writerFor(OutputBookingDto.class);
+        // сначала горячая таблица, затем архив: в архиве только давно закончившиеся
+        try (Stream<Booking> bookings = bookingRepository.streamAllBookingsOwner(ownerId)) {
+            export(bookings.iterator(), writer, out);
+        }
+        try (Stream<Booking> bookings = archiveRepository.streamAllBookingsOwner(ownerId)
+                .map(ArchivedBooking::toBooking)) {
+            export(bookings.iterator(), writer, out);
+        }
+        out.flush();
+    }
+
+    private void export(Iterator<Booking> iterator, ObjectWriter writer, OutputStream out) throws IOException {
+        int count = 0;
+        while (iterator.hasNext()) {
+            out.write(writer.writeValueAsBytes(BookingMapper.toBookingDto(iterator.next())));
+            out.write('\n');
+            // отпускаем уже выгруженные бронирования, чтобы память не росла с длиной истории
+            if (++count % BookingRepository.EXPORT_FETCH_SIZE == 0) {
+                entityManager.clear();
+                out.flush();
+            }
         }
-        throw new BadRequestException(String.format("Unknown state: %s", state));
     }
 
     @Override
     public OutputBookingDto approve(long bookingId, long userId, Boolean approve) {
-        OutputBookingDto booking = findBookingById(bookingId, userId);
-        Long ownerId = itemService.findOwnerId(booking.getItem().getId());
-        if (ownerId.equals(userId)
-                && booking.getStatus().equals(BookingStatus.APPROVED)) {
-            throw new AlreadyExistsException("The booking decision has already been made.");
-        }
-        if (!ownerId.equals(userId)) {
-            throw new OperationAccessException(String.format("User with id = %d is not the owner, no access to booking.", userId));
+        BookingStatus status = approve ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        int updated = approve
+                ? bookingRepository.approveIfWaiting(bookingId, userId, BookingStatus.WAITING, BookingStatus.APPROVED)
+                : bookingRepository.decideIfWaiting(bookingId, userId, BookingStatus.WAITING, BookingStatus.REJECTED);
+        if (updated == 0) {
+            throw approveFailure(bookingId, userId);
         }
+        Booking booking = bookingRepository.findByIdWithItemAndBooker(bookingId)
+                .orElseThrow(() -> new NotFoundException(String.format("Booking with id = %d not found.", bookingId)));
+        Long itemId = booking.getItem().getId();
         if (approve) {
-            booking.setStatus(BookingStatus.APPROVED);
-            bookingRepository.update(BookingStatus.APPROVED, bookingId);
+            intervalIndex.put(new BookingInterval(itemId, bookingId, booking.getStart(), booking.getEnd(), status));
         } else {
-            booking.setStatus(BookingStatus.REJECTED);
-            bookingRepository.update(BookingStatus.REJECTED, bookingId);
+            intervalIndex.remove(itemId, bookingId);
+        }
+        pointerService.onBookingChanged(new ItemBookingDto(itemId, bookingId, booking.getBooker().getId(),
+                booking.getStart(), booking.getEnd()), status);
+        availabilityCache.evict(itemId);
+        eventOutbox.publish(booking);
+        return BookingMapper.toBookingDto(booking);
+    }
+
+    // условный update ничего не изменил - выясняем почему
+    private RuntimeException approveFailure(long bookingId, long userId) {
+        Booking booking = bookingRepository.findByIdWithItemAndBooker(bookingId).orElse(null);
+        if (booking == null) {
+            return new NotFoundException(String.format("Booking with id = %d not found.", bookingId));
+        }
+        if (!booking.getItem().getOwnerId().equals(userId)) {
+            return new OperationAccessException(String.format("User with id = %d is not the owner, no access to booking.", userId));
+        }
+        if (booking.getStatus() != BookingStatus.WAITING) {
+            return new AlreadyExistsException("The booking decision has already been made.");
         }
-        return booking;
+        return new NotAvailableException(String.format("Item with id = %d is already booked for this period.",
+                booking.getItem().getId()));
     }
 }
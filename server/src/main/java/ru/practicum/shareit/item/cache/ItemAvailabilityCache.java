@@ -0,0 +1,65 @@
+package ru.practicum.shareit.item.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.util.TransactionHelper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+@Component
+public class ItemAvailabilityCache {
+    // по вещи - несколько последних запрошенных окон, вся запись сбрасывается при изменении бронирований
+    private final Cache<Long, Map<Window, ItemAvailabilityDto>> items;
+    private final int maxWindows;
+
+    public ItemAvailabilityCache(MeterRegistry meterRegistry,
+                                 @Value("${shareit.cache.availability.max-items:10000}") long maxItems,
+                                 @Value("${shareit.cache.availability.max-windows:16}") int maxWindows,
+                                 @Value("${shareit.cache.availability.ttl:PT5M}") Duration ttl) {
+        this.items = Caffeine.newBuilder()
+                .maximumSize(maxItems)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.maxWindows = maxWindows;
+        CaffeineCacheMetrics.monitor(meterRegistry, items, "items.availability");
+    }
+
+    public ItemAvailabilityDto get(Long itemId, LocalDateTime from, LocalDateTime to,
+                                   Supplier<ItemAvailabilityDto> loader) {
+        Window window = new Window(from, to);
+        Map<Window, ItemAvailabilityDto> windows = items.get(itemId, id -> new ConcurrentHashMap<>());
+        ItemAvailabilityDto result = windows.get(window);
+        if (result == null) {
+            result = loader.get();
+            if (windows.size() >= maxWindows) {
+                windows.clear();
+            }
+            windows.put(window, result);
+        }
+        return result;
+    }
+
+    public void evict(Long itemId) {
+        items.invalidate(itemId);
+        TransactionHelper.afterCommit(() -> items.invalidate(itemId));
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class Window {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+    }
+}
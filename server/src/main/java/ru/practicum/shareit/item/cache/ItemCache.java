@@ -0,0 +1,85 @@
+package ru.practicum.shareit.item.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.util.TransactionHelper;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+@Component
+public class ItemCache {
+    // вещь с комментариями, одинаковая для всех пользователей
+    private final Cache<Long, CachedItem> items;
+    // вещь для владельца: дополнительно lastBooking/nextBooking
+    private final Cache<Long, ItemDto> ownerViews;
+
+    public ItemCache(MeterRegistry meterRegistry,
+                     @Value("${shareit.cache.items.max-size:10000}") long maxSize,
+                     @Value("${shareit.cache.items.ttl:PT5M}") Duration ttl,
+                     @Value("${shareit.cache.items.owner-ttl:PT30S}") Duration ownerTtl) {
+        this.items = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.ownerViews = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ownerTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, items, "items");
+        CaffeineCacheMetrics.monitor(meterRegistry, ownerViews, "items.owner");
+    }
+
+    public CachedItem get(Long itemId, Function<Long, CachedItem> loader) {
+        return items.get(itemId, loader);
+    }
+
+    public ItemDto getOwnerView(Long itemId, Function<Long, ItemDto> loader) {
+        return ItemMapper.copy(ownerViews.get(itemId, loader));
+    }
+
+    public void evict(Long itemId) {
+        items.invalidate(itemId);
+        ownerViews.invalidate(itemId);
+        TransactionHelper.afterCommit(() -> {
+            items.invalidate(itemId);
+            ownerViews.invalidate(itemId);
+        });
+    }
+
+    // удаление пользователя каскадом задевает его вещи, его комментарии и бронирования чужих вещей
+    public void evictAll() {
+        items.invalidateAll();
+        ownerViews.invalidateAll();
+        TransactionHelper.afterCommit(() -> {
+            items.invalidateAll();
+            ownerViews.invalidateAll();
+        });
+    }
+
+    public void evictOwnerView(Long itemId) {
+        ownerViews.invalidate(itemId);
+        TransactionHelper.afterCommit(() -> ownerViews.invalidate(itemId));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CachedItem {
+        private final Long ownerId;
+        private final ItemDto item;
+
+        public ItemDto copy() {
+            return ItemMapper.copy(item);
+        }
+    }
+}
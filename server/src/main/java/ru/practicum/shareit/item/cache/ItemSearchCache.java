@@ -0,0 +1,75 @@
+package ru.practicum.shareit.item.cache;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.TextTokenizer;
+import ru.practicum.shareit.util.TransactionHelper;
+
+import java.time.Duration;
+import java.util.List;
+
+@Component
+public class ItemSearchCache {
+    // после ttl запись отдаётся как есть, а в фоне перезапрашивается; после max-stale удаляется
+    private final LoadingCache<SearchKey, List<ItemDto>> results;
+
+    public ItemSearchCache(ItemSearchEngine searchEngine,
+                           MeterRegistry meterRegistry,
+                           @Value("${shareit.cache.search.max-size:1000}") long maxSize,
+                           @Value("${shareit.cache.search.ttl:PT30S}") Duration ttl,
+                           @Value("${shareit.cache.search.max-stale:PT5M}") Duration maxStale) {
+        Timer refreshTimer = Timer.builder("cache.search.refresh")
+                .description("Time to reload a stale search result in the background")
+                .register(meterRegistry);
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(ttl)
+                .expireAfterWrite(maxStale)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public List<ItemDto> load(SearchKey key) {
+                        return List.copyOf(searchEngine.search(key.getText(), key.getFrom(), key.getSize()));
+                    }
+
+                    @Override
+                    public List<ItemDto> reload(SearchKey key, List<ItemDto> oldValue) {
+                        return refreshTimer.record(() -> load(key));
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, results, "items.search");
+        Gauge.builder("cache.search.hit.ratio", results, cache -> cache.stats().hitRate())
+                .register(meterRegistry);
+    }
+
+    public List<ItemDto> get(String text, int from, int size) {
+        return results.get(new SearchKey(TextTokenizer.normalize(text), from, size));
+    }
+
+    // любое изменение вещей сбрасывает весь кэш: результаты поиска зависят от всех вещей сразу
+    public void invalidateAll() {
+        results.invalidateAll();
+        TransactionHelper.afterCommit(results::invalidateAll);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class SearchKey {
+        private final String text;
+        private final int from;
+        private final int size;
+    }
+}
@@ -1,14 +1,32 @@
 package ru.practicum.shareit.item.comment.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.item.comment.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findAllByItemId(Long itemId);
+    @Query("select c from Comment c " +
+            "join fetch c.author " +
+            "join fetch c.item " +
+            "where c.item.id in :itemIds " +
+            "order by c.created")
+    List<Comment> findAllByItemIds(Collection<Long> itemIds);
 
-    List<Comment> findAllByItemIdOrderByCreated(Long itemId);
+    @Query("select distinct c.item.id from Comment c where c.author.id = :authorId")
+    List<Long> findItemIdsByAuthorId(Long authorId);
+
+    default Map<Long, List<Comment>> findAllByItemIdsGrouped(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Map.of();
+        }
+        return findAllByItemIds(itemIds).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
+    }
 }
@@ -2,14 +2,21 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
@@ -17,6 +24,7 @@ import java.util.List;
 @RequestMapping("/items")
 @AllArgsConstructor
 @Slf4j
+@Validated
 public class ItemController {
     private final ItemService itemService;
 
@@ -26,6 +34,13 @@ public class ItemController {
         return itemService.create(userId, itemDto);
     }
 
+    @PostMapping("/batch")
+    public List<ItemDto> createAll(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                   @RequestBody List<@Valid ItemDto> itemDtos) {
+        log.debug("POST-запрос на создание нескольких вещей.");
+        return itemService.createAll(userId, itemDtos);
+    }
+
     @GetMapping("/{itemId}")
     public ItemDto findById(@RequestHeader("X-Sharer-User-Id") Long userId, @PathVariable Long itemId) {
         log.debug("GET-запрос на получение вещи по идентификатору.");
@@ -33,11 +48,17 @@ public class ItemController {
     }
 
     @GetMapping
-    public List<ItemDto> findAll(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                 @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                 @Positive @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<List<ItemDto>> findAll(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                 @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                 @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                 @RequestParam(required = false) String cursor) {
         log.debug("GET-запрос на получение всех вещей пользователя по идентификатору.");
-        return itemService.findAllUsersItems(userId, from, size);
+        if (cursor == null) {
+            return ResponseEntity.ok(itemService.findAllUsersItems(userId, from, size));
+        }
+        return KeysetCursor.toResponse(itemService.findAllUsersItems(userId,
+                        KeysetCursor.decode(cursor, KeysetCursor.firstAscending()), size), size,
+                item -> new KeysetCursor(null, item.getId()));
     }
 
     @PatchMapping("/{itemId}")
@@ -53,6 +74,23 @@ public class ItemController {
         itemService.deleteById(itemId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto findAvailability(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                @PathVariable Long itemId,
+                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.debug("GET-запрос на получение свободных и занятых периодов вещи.");
+        return itemService.findAvailability(itemId, from, to);
+    }
+
+    @GetMapping("/{itemId}/matching-requests")
+    public List<ItemRequestDto> findMatchingRequests(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                     @PathVariable Long itemId,
+                                                     @Positive @RequestParam(defaultValue = "10") Integer size) {
+        log.debug("GET-запрос на подбор открытых запросов для вещи.");
+        return itemService.findMatchingRequests(itemId, userId, size);
+    }
+
     @GetMapping("/search")
     public Collection<ItemDto> search(@RequestParam String text,
                                       @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
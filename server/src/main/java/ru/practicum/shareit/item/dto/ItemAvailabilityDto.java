@@ -0,0 +1,25 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// неизменяемый: один экземпляр отдаётся из кэша всем клиентам
+@Getter
+@AllArgsConstructor
+public class ItemAvailabilityDto {
+    private final Long itemId;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final List<Interval> free;
+    private final List<Interval> busy;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Interval {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+    }
+}
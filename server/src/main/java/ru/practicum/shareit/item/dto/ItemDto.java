@@ -1,8 +1,10 @@
 package ru.practicum.shareit.item.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 import ru.practicum.shareit.booking.dto.ShortItemBookingDto;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -11,7 +13,7 @@ import java.util.List;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class ItemDto {
     private Long id;
     @NotBlank
@@ -24,4 +26,7 @@ public class ItemDto {
     private ShortItemBookingDto nextBooking;
     private List<CommentDto> comments;
     private Long requestId;
+    // открытые запросы, которым может подойти вещь; только в ответе на создание
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ItemRequestDto> matchingRequests;
 }
\ No newline at end of file
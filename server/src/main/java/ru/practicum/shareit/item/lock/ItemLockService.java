@@ -0,0 +1,57 @@
+package ru.practicum.shareit.item.lock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exception.NotAvailableException;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// блокировка вещи до конца текущей транзакции: полосатый замок внутри узла + select for update между узлами
+@Component
+public class ItemLockService {
+    private final ItemRepository itemRepository;
+    private final Lock[] stripes;
+    private final long timeoutMillis;
+
+    public ItemLockService(ItemRepository itemRepository,
+                           @Value("${shareit.items.lock.stripes:1024}") int stripes,
+                           @Value("${shareit.items.lock.timeout:PT5S}") Duration timeout) {
+        this.itemRepository = itemRepository;
+        this.stripes = new Lock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    public Item lock(Long itemId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Item lock requires an active transaction.");
+        }
+        Lock lock = stripes[Math.floorMod(Long.hashCode(itemId), stripes.length)];
+        try {
+            if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new NotAvailableException(String.format("Item with id = %d is busy, try again later.", itemId));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NotAvailableException(String.format("Item with id = %d is busy, try again later.", itemId));
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+        return itemRepository.findByIdForUpdate(itemId)
+                .orElseThrow(() -> new NotFoundException(String.format("Item with id = %d not found.", itemId)));
+    }
+}
@@ -1,8 +1,11 @@
 package ru.practicum.shareit.item.mapper;
 
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemShortDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.ArrayList;
+
 public class ItemMapper {
     public static ItemDto toItemDto(Item item) {
         return ItemDto.builder()
@@ -14,6 +17,27 @@ public class ItemMapper {
                 .build();
     }
 
+    public static ItemDto copy(ItemDto itemDto) {
+        return itemDto.toBuilder()
+                .comments(itemDto.getComments() != null ? new ArrayList<>(itemDto.getComments()) : null)
+                .build();
+    }
+
+    public static ItemDto toItemDto(ItemShortDto item) {
+        return ItemDto.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.getAvailable())
+                .requestId(item.getRequestId())
+                .build();
+    }
+
+    public static ItemShortDto toItemShortDto(Item item) {
+        return new ItemShortDto(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                item.getItemRequest() != null ? item.getItemRequest().getId() : null);
+    }
+
     public static Item toItem(ItemDto itemDto) {
         return Item.builder()
                 .id(itemDto.getId())
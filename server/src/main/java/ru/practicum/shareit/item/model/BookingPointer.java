@@ -0,0 +1,24 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.time.LocalDateTime;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingPointer {
+    @Column(name = "booking_id")
+    private Long id;
+    @Column(name = "booker_id")
+    private Long bookerId;
+    @Column(name = "booking_start")
+    private LocalDateTime start;
+    @Column(name = "booking_end")
+    private LocalDateTime end;
+}
@@ -1,7 +1,7 @@
 package ru.practicum.shareit.item.model;
 
 import lombok.*;
-import ru.practicum.shareit.booking.dto.ShortItemBookingDto;
+import org.hibernate.annotations.DynamicUpdate;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 
@@ -10,13 +10,16 @@ import java.util.List;
 
 @Entity
 @Table(name = "items")
+@DynamicUpdate
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class Item {
+    // последовательность с шагом 50 - Hibernate выдаёт id пачками и может группировать вставки
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private Long id;
     @Column(name = "name", nullable = false)
     private String name;
@@ -26,13 +29,26 @@ public class Item {
     private Boolean available;
     @Column(name = "owner_id", nullable = false)
     private Long ownerId;
-    @Transient
-    private ShortItemBookingDto lastBooking;
-    @Transient
-    private ShortItemBookingDto nextBooking;
+    // последнее и ближайшее бронирование, поддерживаются при записи бронирований
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "id", column = @Column(name = "last_booking_id")),
+            @AttributeOverride(name = "bookerId", column = @Column(name = "last_booker_id")),
+            @AttributeOverride(name = "start", column = @Column(name = "last_booking_start")),
+            @AttributeOverride(name = "end", column = @Column(name = "last_booking_end"))
+    })
+    private BookingPointer lastBooking;
+    @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "id", column = @Column(name = "next_booking_id")),
+            @AttributeOverride(name = "bookerId", column = @Column(name = "next_booker_id")),
+            @AttributeOverride(name = "start", column = @Column(name = "next_booking_start")),
+            @AttributeOverride(name = "end", column = @Column(name = "next_booking_end"))
+    })
+    private BookingPointer nextBooking;
     @Transient
     private List<CommentDto> comments;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id")
     private ItemRequest itemRequest;
 
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.item.pointer;
+
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.archive.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.dto.ItemBookingDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.cache.ItemCache;
+import ru.practicum.shareit.item.model.BookingPointer;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@AllArgsConstructor
+public class BookingPointerService {
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archiveRepository;
+    private final ItemCache itemCache;
+
+    // новое или изменённое бронирование: сдвигаем указатель условным update без чтения вещи
+    @Transactional
+    public void onBookingChanged(ItemBookingDto booking, BookingStatus status) {
+        if (status == BookingStatus.REJECTED) {
+            onBookingRejected(booking);
+            return;
+        }
+        int updated = booking.getStart().isAfter(LocalDateTime.now())
+                ? itemRepository.offerNextBooking(booking.getItemId(), booking.getId(), booking.getBookerId(),
+                booking.getStart(), booking.getEnd())
+                : itemRepository.offerLastBooking(booking.getItemId(), booking.getId(), booking.getBookerId(),
+                booking.getStart(), booking.getEnd());
+        if (updated > 0) {
+            itemCache.evictOwnerView(booking.getItemId());
+        }
+    }
+
+    private void onBookingRejected(ItemBookingDto booking) {
+        Item item = itemRepository.findById(booking.getItemId()).orElse(null);
+        if (item != null && (isPointer(item.getLastBooking(), booking.getId())
+                || isPointer(item.getNextBooking(), booking.getId()))) {
+            refresh(List.of(booking.getItemId()));
+        }
+    }
+
+    // пересчитывает указатели по таблице бронирований, возвращает число исправленных вещей
+    @Transactional
+    public int refresh(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+        List<Item> items = itemRepository.findAllByIdForUpdate(itemIds);
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, ItemBookingDto> lastBookings = bookingRepository
+                .findLastBookingsItems(itemIds, BookingStatus.REJECTED, now).stream()
+                .collect(Collectors.toMap(ItemBookingDto::getItemId, Function.identity(),
+                        BinaryOperator.maxBy(Comparator.comparing(ItemBookingDto::getId))));
+        // давно не бронировавшиеся вещи: последнее бронирование уже в архиве
+        List<Long> withoutLast = itemIds.stream()
+                .filter(itemId -> !lastBookings.containsKey(itemId))
+                .collect(Collectors.toList());
+        if (!withoutLast.isEmpty()) {
+            archiveRepository.findLastBookingsItems(withoutLast, BookingStatus.REJECTED)
+                    .forEach(booking -> lastBookings.merge(booking.getItemId(), booking,
+                            BinaryOperator.maxBy(Comparator.comparing(ItemBookingDto::getId))));
+        }
+        Map<Long, ItemBookingDto> nextBookings = bookingRepository
+                .findNextBookingsItems(itemIds, BookingStatus.REJECTED, now).stream()
+                .collect(Collectors.toMap(ItemBookingDto::getItemId, Function.identity(),
+                        BinaryOperator.minBy(Comparator.comparing(ItemBookingDto::getId))));
+        int changed = 0;
+        for (Item item : items) {
+            BookingPointer lastBooking = toPointer(lastBookings.get(item.getId()));
+            BookingPointer nextBooking = toPointer(nextBookings.get(item.getId()));
+            if (!Objects.equals(item.getLastBooking(), lastBooking)
+                    || !Objects.equals(item.getNextBooking(), nextBooking)) {
+                item.setLastBooking(lastBooking);
+                item.setNextBooking(nextBooking);
+                itemCache.evictOwnerView(item.getId());
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private static boolean isPointer(BookingPointer pointer, Long bookingId) {
+        return pointer != null && Objects.equals(pointer.getId(), bookingId);
+    }
+
+    private static BookingPointer toPointer(ItemBookingDto booking) {
+        if (booking == null) {
+            return null;
+        }
+        return new BookingPointer(booking.getId(), booking.getBookerId(), booking.getStart(), booking.getEnd());
+    }
+}
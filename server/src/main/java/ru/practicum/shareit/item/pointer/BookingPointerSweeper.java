@@ -0,0 +1,56 @@
+package ru.practicum.shareit.item.pointer;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+@AllArgsConstructor
+@Slf4j
+public class BookingPointerSweeper {
+    private static final int BATCH_SIZE = 500;
+
+    private final ItemRepository itemRepository;
+    private final BookingPointerService pointerService;
+
+    // ближайшее бронирование началось - оно становится последним, ищем следующее
+    @Scheduled(fixedDelayString = "${shareit.items.booking-pointers.sweep-interval:PT1M}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int changed = 0;
+        List<Long> itemIds;
+        do {
+            itemIds = itemRepository.findIdsWithStartedNextBooking(now, PageRequest.ofSize(BATCH_SIZE));
+            changed += pointerService.refresh(itemIds);
+        } while (itemIds.size() == BATCH_SIZE);
+        if (changed > 0) {
+            log.debug("Booking pointers moved for {} items.", changed);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.items.booking-pointers.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        long lastId = 0;
+        int changed = 0;
+        List<Long> itemIds;
+        do {
+            itemIds = itemRepository.findIdsAfter(lastId, PageRequest.ofSize(BATCH_SIZE));
+            if (!itemIds.isEmpty()) {
+                changed += pointerService.refresh(itemIds);
+                lastId = itemIds.get(itemIds.size() - 1);
+            }
+        } while (itemIds.size() == BATCH_SIZE);
+        if (changed > 0) {
+            log.warn("Booking pointers were out of sync for {} items, fixed.", changed);
+        }
+    }
+}
@@ -2,22 +2,91 @@ package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.ItemShortDto;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.request.model.ItemRequest;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> findAllByOwnerId(Long userId, Pageable page);
 
+    List<Item> findAllByOwnerIdAndIdGreaterThanOrderById(Long userId, Long id, Pageable page);
+
     @Query("select i from Item i " +
-            "where upper(i.name) like upper(concat('%', ?1, '%')) " +
-            "or upper(i.description) like upper(concat('%', ?1, '%')) " +
-            "and i.available = true")
+            "where i.available = true " +
+            "and (upper(i.name) like upper(concat('%', ?1, '%')) " +
+            "or upper(i.description) like upper(concat('%', ?1, '%'))) " +
+            "order by case when upper(i.name) like upper(concat('%', ?1, '%')) then 0 else 1 end, i.id")
     List<Item> searchAvailableItems(String text, Pageable page);
 
-    List<Item> findAllByItemRequest(ItemRequest itemRequest);
+    @Query(value = "select * from items i " +
+            "where i.is_available = true " +
+            "and (to_tsvector('simple', i.name || ' ' || i.description) @@ plainto_tsquery('simple', :text) " +
+            "or upper(i.name) like upper(concat('%', :text, '%')) " +
+            "or upper(i.description) like upper(concat('%', :text, '%'))) " +
+            "order by ts_rank(to_tsvector('simple', i.name || ' ' || i.description), " +
+            "plainto_tsquery('simple', :text)) desc, i.id",
+            nativeQuery = true)
+    List<Item> searchAvailableItemsFullText(String text, Pageable page);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemShortDto(i.id, i.name, i.description, i.available, r.id) " +
+            "from Item i " +
+            "left join i.itemRequest r " +
+            "where i.available = true and i.id > :id " +
+            "order by i.id")
+    List<ItemShortDto> findAvailableItemsAfter(Long id, Pageable page);
+
+    long countByAvailableTrue();
+
+    @Query("select coalesce(sum(i.id), 0) from Item i where i.available = true")
+    long sumAvailableItemIds();
+
+    // вещи для страницы запросов одним запросом, без загрузки сущностей и их запросов
+    @Query("select new ru.practicum.shareit.item.dto.ItemShortDto(i.id, i.name, i.description, i.available, " +
+            "i.itemRequest.id) " +
+            "from Item i " +
+            "where i.itemRequest.id in :requestIds " +
+            "order by i.id")
+    List<ItemShortDto> findAllByRequestIds(Collection<Long> requestIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id = :itemId")
+    Optional<Item> findByIdForUpdate(Long itemId);
+
+    // указатели на бронирования
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id in :itemIds order by i.id")
+    List<Item> findAllByIdForUpdate(Collection<Long> itemIds);
+
+    @Query("select i.id from Item i where i.nextBooking.start <= :time order by i.nextBooking.start")
+    List<Long> findIdsWithStartedNextBooking(LocalDateTime time, Pageable page);
+
+    @Query("select i.id from Item i where i.ownerId = :ownerId")
+    List<Long> findIdsByOwnerId(Long ownerId);
+
+    @Query("select i.id from Item i where i.id > :id order by i.id")
+    List<Long> findIdsAfter(Long id, Pageable page);
+
+    @Modifying
+    @Query("update Item i set i.nextBooking.id = :bookingId, i.nextBooking.bookerId = :bookerId, " +
+            "i.nextBooking.start = :start, i.nextBooking.end = :end " +
+            "where i.id = :itemId and (i.nextBooking.start is null or i.nextBooking.start > :start " +
+            "or (i.nextBooking.start = :start and i.nextBooking.id > :bookingId))")
+    int offerNextBooking(Long itemId, Long bookingId, Long bookerId, LocalDateTime start, LocalDateTime end);
+
+    @Modifying
+    @Query("update Item i set i.lastBooking.id = :bookingId, i.lastBooking.bookerId = :bookerId, " +
+            "i.lastBooking.start = :start, i.lastBooking.end = :end " +
+            "where i.id = :itemId and (i.lastBooking.start is null or i.lastBooking.start < :start " +
+            "or (i.lastBooking.start = :start and i.lastBooking.id < :bookingId))")
+    int offerLastBooking(Long itemId, Long bookingId, Long bookerId, LocalDateTime start, LocalDateTime end);
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Component
+@Slf4j
+public class ItemSearchEngine {
+    private final ItemRepository itemRepository;
+    private final ItemSearchIndex searchIndex;
+    private final SearchMode mode;
+
+    public ItemSearchEngine(ItemRepository itemRepository,
+                            ItemSearchIndex searchIndex,
+                            @Value("${shareit.search.mode:LIKE}") SearchMode mode) {
+        this.itemRepository = itemRepository;
+        this.searchIndex = searchIndex;
+        this.mode = mode;
+        log.info("Item search mode: {}", mode);
+    }
+
+    public List<ItemDto> search(String text, Integer from, Integer size) {
+        if (mode == SearchMode.MEMORY) {
+            Optional<List<ItemDto>> result = searchIndex.search(text, from, size);
+            if (result.isPresent()) {
+                return result.get();
+            }
+        }
+        Pageable page = PageRequest.of(from / size, size);
+        return searchItems(text, page).stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    private List<Item> searchItems(String text, Pageable page) {
+        if (mode == SearchMode.FULLTEXT) {
+            return itemRepository.searchAvailableItemsFullText(text, page);
+        }
+        return itemRepository.searchAvailableItems(text, page);
+    }
+}
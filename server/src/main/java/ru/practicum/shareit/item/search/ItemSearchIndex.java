@@ -0,0 +1,340 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemShortDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.util.TransactionHelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+@Component
+@Slf4j
+public class ItemSearchIndex {
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final int NAME_WEIGHT = 2;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // одна перестройка за раз: при старте и из проверки согласованности
+    private final Object rebuildMonitor = new Object();
+
+    private Contents contents = new Contents();
+    // изменения, закоммиченные во время перестройки: загрузка могла прочитать строку до них
+    private final Map<Long, Document> pending = new HashMap<>();
+    private boolean rebuilding;
+    private boolean ready;
+
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           @Value("${shareit.search.mode:LIKE}") SearchMode mode,
+                           @Value("${shareit.search.index.max-memory:64MB}") DataSize maxMemory) {
+        this.itemRepository = itemRepository;
+        this.enabled = mode == SearchMode.MEMORY;
+        this.maxBytes = maxMemory.toBytes();
+    }
+
+    // новый индекс собирается без блокировки и подменяет старый целиком: поиск и запись не ждут загрузки
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (rebuildMonitor) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = true;
+                pending.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                Contents loaded = new Contents();
+                long lastId = 0;
+                List<ItemShortDto> batch;
+                do {
+                    batch = itemRepository.findAvailableItemsAfter(lastId, PageRequest.ofSize(LOAD_BATCH_SIZE));
+                    for (ItemShortDto item : batch) {
+                        loaded.add(new Document(item));
+                        lastId = item.getId();
+                    }
+                } while (batch.size() == LOAD_BATCH_SIZE && !isOverBudget(loaded));
+                lock.writeLock().lock();
+                try {
+                    pending.forEach(loaded::replace);
+                    contents = loaded;
+                    ready = !isOverBudget(loaded);
+                    log.info("Item search index rebuilt: {} items, ~{} bytes, ready = {}",
+                            loaded.documents.size(), loaded.estimatedBytes, ready);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    rebuilding = false;
+                    pending.clear();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.search.index.check-interval:PT10M}",
+            initialDelayString = "${shareit.search.index.check-interval:PT10M}")
+    public void checkConsistency() {
+        if (!enabled) {
+            return;
+        }
+        long count = itemRepository.countByAvailableTrue();
+        long sum = itemRepository.sumAvailableItemIds();
+        boolean consistent;
+        lock.readLock().lock();
+        try {
+            consistent = ready && contents.documents.size() == count && contents.idSum == sum;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!consistent) {
+            log.warn("Item search index is out of sync with items table, rebuilding.");
+            rebuild();
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public void put(Item item) {
+        putAll(List.of(item));
+    }
+
+    public void putAll(Collection<Item> items) {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Document> changes = new HashMap<>();
+        for (Item item : items) {
+            changes.put(item.getId(), Boolean.TRUE.equals(item.getAvailable())
+                    ? new Document(ItemMapper.toItemShortDto(item)) : null);
+        }
+        applyAfterCommit(changes);
+    }
+
+    public void delete(long itemId) {
+        deleteAll(List.of(itemId));
+    }
+
+    // вещи, удалённые каскадом вместе с владельцем
+    public void deleteAll(Collection<Long> itemIds) {
+        if (!enabled || itemIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Document> changes = new HashMap<>();
+        itemIds.forEach(itemId -> changes.put(itemId, null));
+        applyAfterCommit(changes);
+    }
+
+    public Optional<List<ItemDto>> search(String text, int from, int size) {
+        if (!isReady() || !lock.readLock().tryLock()) {
+            return Optional.empty();
+        }
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            String query = TextTokenizer.normalize(text);
+            List<String> queryTokens = TextTokenizer.tokens(query);
+            Map<Document, Double> scores = new HashMap<>();
+            for (Document document : candidates(query)) {
+                if (document.matches(query)) {
+                    scores.put(document, score(document, query, queryTokens));
+                }
+            }
+            return Optional.of(scores.entrySet().stream()
+                    .sorted(Map.Entry.<Document, Double>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(entry -> entry.getKey().item.getId()))
+                    .skip(from)
+                    .limit(size)
+                    .map(entry -> ItemMapper.toItemDto(entry.getKey().item))
+                    .collect(Collectors.toList()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // значение null - вещь удалена или недоступна
+    private void applyAfterCommit(Map<Long, Document> changes) {
+        TransactionHelper.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                changes.forEach(contents::replace);
+                if (rebuilding) {
+                    pending.putAll(changes);
+                }
+                if (ready && isOverBudget(contents)) {
+                    ready = false;
+                    log.warn("Item search index exceeded memory budget of {} bytes, falling back to SQL search.",
+                            maxBytes);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private Collection<Document> candidates(String query) {
+        Set<String> queryGrams = TextTokenizer.grams(query);
+        if (queryGrams.isEmpty()) {
+            return contents.documents.values();
+        }
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : queryGrams) {
+            Set<Long> ids = contents.grams.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+            result.retainAll(postings.get(i));
+        }
+        return result.stream()
+                .map(contents.documents::get)
+                .collect(Collectors.toList());
+    }
+
+    private double score(Document document, String query, List<String> queryTokens) {
+        double averageLength = contents.documents.isEmpty()
+                ? 1 : (double) contents.totalLength / contents.documents.size();
+        double score = 0;
+        for (String token : queryTokens) {
+            Integer frequency = document.termFrequency.get(token);
+            if (frequency == null) {
+                continue;
+            }
+            int df = contents.documentFrequency.getOrDefault(token, 0);
+            double idf = Math.log(1 + (contents.documents.size() - df + 0.5) / (df + 0.5));
+            score += idf * frequency * (K1 + 1)
+                    / (frequency + K1 * (1 - B + B * document.length / averageLength));
+        }
+        if (document.normalizedName.contains(query)) {
+            score += 1;
+        }
+        return score;
+    }
+
+    private boolean isOverBudget(Contents contents) {
+        return contents.estimatedBytes > maxBytes;
+    }
+
+    private static final class Contents {
+        private final Map<Long, Document> documents = new HashMap<>();
+        private final Map<String, Set<Long>> grams = new HashMap<>();
+        private final Map<String, Integer> documentFrequency = new HashMap<>();
+        private long totalLength;
+        private long idSum;
+        private long estimatedBytes;
+
+        private void replace(Long id, Document document) {
+            remove(id);
+            if (document != null) {
+                add(document);
+            }
+        }
+
+        private void add(Document document) {
+            long id = document.item.getId();
+            documents.put(id, document);
+            for (String gram : document.grams) {
+                grams.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+            }
+            for (String token : document.termFrequency.keySet()) {
+                documentFrequency.merge(token, 1, Integer::sum);
+            }
+            totalLength += document.length;
+            idSum += id;
+            estimatedBytes += document.estimatedBytes();
+        }
+
+        private void remove(long id) {
+            Document document = documents.remove(id);
+            if (document == null) {
+                return;
+            }
+            for (String gram : document.grams) {
+                Set<Long> ids = grams.get(gram);
+                if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+            for (String token : document.termFrequency.keySet()) {
+                documentFrequency.computeIfPresent(token, (key, count) -> count > 1 ? count - 1 : null);
+            }
+            totalLength -= document.length;
+            idSum -= id;
+            estimatedBytes -= document.estimatedBytes();
+        }
+    }
+
+    private static final class Document {
+        private final ItemShortDto item;
+        private final String normalizedName;
+        private final String normalizedDescription;
+        private final Set<String> grams = new HashSet<>();
+        private final Map<String, Integer> termFrequency = new HashMap<>();
+        private int length;
+
+        private Document(ItemShortDto item) {
+            this.item = item;
+            this.normalizedName = TextTokenizer.normalize(item.getName());
+            this.normalizedDescription = TextTokenizer.normalize(item.getDescription());
+            grams.addAll(TextTokenizer.grams(normalizedName));
+            grams.addAll(TextTokenizer.grams(normalizedDescription));
+            for (String token : TextTokenizer.tokens(normalizedName)) {
+                termFrequency.merge(token, NAME_WEIGHT, Integer::sum);
+                length += NAME_WEIGHT;
+            }
+            for (String token : TextTokenizer.tokens(normalizedDescription)) {
+                termFrequency.merge(token, 1, Integer::sum);
+                length++;
+            }
+        }
+
+        private boolean matches(String query) {
+            return normalizedName.contains(query) || normalizedDescription.contains(query);
+        }
+
+        private long estimatedBytes() {
+            long text = 2L * (item.getName().length() + item.getDescription().length()
+                    + normalizedName.length() + normalizedDescription.length());
+            return 128 + text + 48L * grams.size() + 64L * termFrequency.size();
+        }
+    }
+}
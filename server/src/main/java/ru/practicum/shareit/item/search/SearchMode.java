@@ -0,0 +1,10 @@
+package ru.practicum.shareit.item.search;
+
+public enum SearchMode {
+    // upper(...) like '%text%', работает на любой БД
+    LIKE,
+    // tsvector + pg_trgm, только PostgreSQL
+    FULLTEXT,
+    // in-memory индекс ItemSearchIndex, пока он не готов - LIKE
+    MEMORY
+}
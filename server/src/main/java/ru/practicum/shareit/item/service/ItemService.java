@@ -1,17 +1,25 @@
 package ru.practicum.shareit.item.service;
 
 import ru.practicum.shareit.item.comment.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
     public ItemDto create(Long userId, ItemDto itemDto);
 
+    public List<ItemDto> createAll(Long userId, List<ItemDto> itemDtos);
+
     public ItemDto findItemById(Long itemId, Long userId);
 
     public List<ItemDto> findAllUsersItems(Long userId, Integer from, Integer size);
 
+    public List<ItemDto> findAllUsersItems(Long userId, KeysetCursor cursor, Integer size);
+
     public ItemDto update(ItemDto itemDto, Long itemId, Long userId);
 
     public ItemDto updateBookings(ItemDto itemDto);
@@ -22,5 +30,9 @@ public interface ItemService {
 
     public Long findOwnerId(Long itemId);
 
+    public ItemAvailabilityDto findAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
+
+    public List<ItemRequestDto> findMatchingRequests(Long itemId, Long userId, Integer size);
+
     public CommentDto addComment(Long itemId, Long userId, CommentDto commentDto);
 }
@@ -7,22 +7,39 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.archive.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.dto.ItemBookingDto;
+import ru.practicum.shareit.booking.interval.BookingInterval;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.NotAvailableException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.OperationAccessException;
+import ru.practicum.shareit.exception.TimeDataException;
+import ru.practicum.shareit.item.cache.ItemAvailabilityCache;
+import ru.practicum.shareit.item.cache.ItemCache;
+import ru.practicum.shareit.item.cache.ItemSearchCache;
 import ru.practicum.shareit.item.comment.dto.CommentDto;
 import ru.practicum.shareit.item.comment.mapper.CommentMapper;
 import ru.practicum.shareit.item.comment.model.Comment;
 import ru.practicum.shareit.item.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.BookingPointer;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.match.ItemRequestMatchIndex;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
@@ -32,7 +49,11 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
@@ -40,11 +61,22 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 @Slf4j
 public class ItemServiceImpl implements ItemService {
+    public static final int MAX_BATCH_SIZE = 100;
+    public static final int MATCHING_REQUESTS_ON_CREATE = 5;
+
     private final ItemRepository itemRepository;
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archiveRepository;
     private final UserServiceImpl userService;
     private final CommentRepository commentRepository;
     private final ItemRequestServiceImpl requestService;
+    private final ItemRequestRepository requestRepository;
+    private final ItemSearchCache searchCache;
+    private final ItemSearchIndex searchIndex;
+    private final ItemCache itemCache;
+    private final ItemAvailabilityCache availabilityCache;
+    private final ItemRequestFeed requestFeed;
+    private final ItemRequestMatchIndex matchIndex;
 
     @Override
     @Transactional
@@ -54,21 +86,80 @@ public class ItemServiceImpl implements ItemService {
         item.setOwnerId(userId);
         item.setItemRequest(itemDto.getRequestId() != null ?
                 ItemRequestMapper.toItemRequest(requestService.findById(userId, itemDto.getRequestId())) : null);
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        item = itemRepository.save(item);
+        searchIndex.put(item);
+        searchCache.invalidateAll();
+        requestFeed.putItems(List.of(item));
+        ItemDto created = ItemMapper.toItemDto(item);
+        // вещь, созданная не в ответ на запрос: подсказываем владельцу, кому она может пригодиться
+        if (itemDto.getRequestId() != null) {
+            matchIndex.close(List.of(itemDto.getRequestId()));
+        } else {
+            created.setMatchingRequests(matchIndex.match(item.getName(), item.getDescription(), userId,
+                    MATCHING_REQUESTS_ON_CREATE));
+        }
+        return created;
+    }
+
+    @Override
+    @Transactional
+    public List<ItemDto> createAll(Long userId, List<ItemDto> itemDtos) {
+        if (itemDtos.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException(String.format("No more than %d items can be created at once.", MAX_BATCH_SIZE));
+        }
+        userService.findUserById(userId);
+        Set<Long> requestIds = itemDtos.stream()
+                .map(ItemDto::getRequestId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, ItemRequest> requests = requestRepository.findAllById(requestIds).stream()
+                .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+        requestIds.stream()
+                .filter(requestId -> !requests.containsKey(requestId))
+                .findFirst()
+                .ifPresent(requestId -> {
+                    throw new NotFoundException(String.format("Request with id = %d not found.", requestId));
+                });
+        List<Item> items = itemDtos.stream()
+                .map(itemDto -> {
+                    Item item = ItemMapper.toItem(itemDto);
+                    item.setId(null);
+                    item.setOwnerId(userId);
+                    item.setItemRequest(itemDto.getRequestId() != null ? requests.get(itemDto.getRequestId()) : null);
+                    return item;
+                })
+                .collect(Collectors.toList());
+        items = itemRepository.saveAll(items);
+        searchIndex.putAll(items);
+        searchCache.invalidateAll();
+        requestFeed.putItems(items);
+        matchIndex.close(requestIds);
+        return toItemDto(items);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ItemDto findItemById(Long itemId, Long userId) {
-        ItemDto result;
+        ItemCache.CachedItem cached = itemCache.get(itemId, this::loadItem);
+        if (Objects.equals(cached.getOwnerId(), userId)) {
+            return itemCache.getOwnerView(itemId, id -> loadOwnerView(cached));
+        }
+        return cached.copy();
+    }
+
+    private ItemCache.CachedItem loadItem(Long itemId) {
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new NotFoundException(String.format("Item with id = %d not found.", itemId)));
-        result = ItemMapper.toItemDto(item);
-        if (Objects.equals(item.getOwnerId(), userId)) {
-            updateBookings(result);
-        }
-        List<Comment> comments = commentRepository.findAllByItemId(result.getId());
-        result.setComments(CommentMapper.toDtoList(comments));
+        ItemDto result = ItemMapper.toItemDto(item);
+        updateComments(List.of(result));
+        return new ItemCache.CachedItem(item.getOwnerId(), result);
+    }
+
+    private ItemDto loadOwnerView(ItemCache.CachedItem cached) {
+        ItemDto result = cached.copy();
+        Item item = itemRepository.findById(result.getId())
+                .orElseThrow(() -> new NotFoundException(String.format("Item with id = %d not found.", result.getId())));
+        updateBookings(List.of(result), List.of(item));
         return result;
     }
 
@@ -77,13 +168,16 @@ public class ItemServiceImpl implements ItemService {
     public List<ItemDto> findAllUsersItems(Long userId, Integer from, Integer size) {
         Sort sort = Sort.by(Sort.Direction.ASC, "id");
         Pageable page = PageRequest.of(from / size, size, sort);
-        List<ItemDto> item = itemRepository.findAllByOwnerId(userId, page).stream()
-                .map(ItemMapper::toItemDto)
-                .collect(Collectors.toList());
-        return item.stream()
-                .map(this::updateBookings)
-                .peek((i) -> CommentMapper.toDtoList(commentRepository.findAllByItemIdOrderByCreated(i.getId())))
-                .collect(Collectors.toList());
+        List<Item> items = itemRepository.findAllByOwnerId(userId, page);
+        return updateComments(updateBookings(toItemDto(items), items));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemDto> findAllUsersItems(Long userId, KeysetCursor cursor, Integer size) {
+        List<Item> items = itemRepository
+                .findAllByOwnerIdAndIdGreaterThanOrderById(userId, cursor.getId(), PageRequest.ofSize(size));
+        return updateComments(updateBookings(toItemDto(items), items));
     }
 
     @Override
@@ -104,46 +198,115 @@ public class ItemServiceImpl implements ItemService {
         if (itemDto.getAvailable() != null) {
             item.setAvailable(itemDto.getAvailable());
         }
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        item = itemRepository.save(item);
+        searchIndex.put(item);
+        searchCache.invalidateAll();
+        itemCache.evict(itemId);
+        requestFeed.putItems(List.of(item));
+        return ItemMapper.toItemDto(item);
     }
 
     @Override
     public ItemDto updateBookings(ItemDto itemDto) {
+        updateBookings(List.of(itemDto));
+        return itemDto;
+    }
+
+    private static List<ItemDto> toItemDto(List<Item> items) {
+        return items.stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+    }
+
+    // берёт lastBooking/nextBooking из указателей вещи; если ближайшее бронирование уже началось,
+    // а планировщик ещё не сдвинул указатели, считает их по таблице бронирований
+    private List<ItemDto> updateBookings(List<ItemDto> items, List<Item> entities) {
         LocalDateTime now = LocalDateTime.now();
-        List<Booking> bookings = bookingRepository.findAllBookingsItem(itemDto.getId());
-        Booking lastBooking = bookings.stream()
-                .filter(obj -> !(obj.getStatus().equals(BookingStatus.REJECTED)))
-                .filter(obj -> obj.getStart().isBefore(now))
-                .min((obj1, obj2) -> obj2.getStart().compareTo(obj1.getStart())).orElse(null);
-        Booking nextBooking = bookings.stream()
-                .filter(obj -> !(obj.getStatus().equals(BookingStatus.REJECTED)))
-                .filter(obj -> obj.getStart().isAfter(now))
-                .min(Comparator.comparing(Booking::getStart)).orElse(null);
-        if (lastBooking != null) {
-            itemDto.setLastBooking(BookingMapper.toItemBookingDto(lastBooking));
-        }
-        if (nextBooking != null) {
-            itemDto.setNextBooking(BookingMapper.toItemBookingDto(nextBooking));
+        List<ItemDto> stale = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            ItemDto item = items.get(i);
+            BookingPointer lastBooking = entities.get(i).getLastBooking();
+            BookingPointer nextBooking = entities.get(i).getNextBooking();
+            if (nextBooking != null && !nextBooking.getStart().isAfter(now)) {
+                stale.add(item);
+                continue;
+            }
+            item.setLastBooking(lastBooking != null ? BookingMapper.toItemBookingDto(lastBooking) : null);
+            item.setNextBooking(nextBooking != null ? BookingMapper.toItemBookingDto(nextBooking) : null);
         }
-        return itemDto;
+        updateBookings(stale);
+        return items;
+    }
+
+    private List<ItemDto> updateBookings(List<ItemDto> items) {
+        if (items.isEmpty()) {
+            return items;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> itemIds = items.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+        Map<Long, ItemBookingDto> lastBookings = bookingRepository
+                .findLastBookingsItems(itemIds, BookingStatus.REJECTED, now).stream()
+                .collect(Collectors.toMap(ItemBookingDto::getItemId, Function.identity(),
+                        BinaryOperator.maxBy(Comparator.comparing(ItemBookingDto::getId))));
+        // давно не бронировавшиеся вещи: последнее бронирование уже в архиве
+        List<Long> withoutLast = itemIds.stream()
+                .filter(itemId -> !lastBookings.containsKey(itemId))
+                .collect(Collectors.toList());
+        if (!withoutLast.isEmpty()) {
+            archiveRepository.findLastBookingsItems(withoutLast, BookingStatus.REJECTED)
+                    .forEach(booking -> lastBookings.merge(booking.getItemId(), booking,
+                            BinaryOperator.maxBy(Comparator.comparing(ItemBookingDto::getId))));
+        }
+        Map<Long, ItemBookingDto> nextBookings = bookingRepository
+                .findNextBookingsItems(itemIds, BookingStatus.REJECTED, now).stream()
+                .collect(Collectors.toMap(ItemBookingDto::getItemId, Function.identity(),
+                        BinaryOperator.minBy(Comparator.comparing(ItemBookingDto::getId))));
+        for (ItemDto item : items) {
+            ItemBookingDto lastBooking = lastBookings.get(item.getId());
+            if (lastBooking != null) {
+                item.setLastBooking(BookingMapper.toItemBookingDto(lastBooking));
+            }
+            ItemBookingDto nextBooking = nextBookings.get(item.getId());
+            if (nextBooking != null) {
+                item.setNextBooking(BookingMapper.toItemBookingDto(nextBooking));
+            }
+        }
+        return items;
+    }
+
+    private List<ItemDto> updateComments(List<ItemDto> items) {
+        if (items.isEmpty()) {
+            return items;
+        }
+        Map<Long, List<Comment>> comments = commentRepository.findAllByItemIdsGrouped(items.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList()));
+        for (ItemDto item : items) {
+            item.setComments(CommentMapper.toDtoList(comments.getOrDefault(item.getId(), List.of())));
+        }
+        return items;
     }
 
     @Override
     @Transactional
     public void deleteById(Long itemId) {
         itemRepository.deleteById(itemId);
+        searchIndex.delete(itemId);
+        searchCache.invalidateAll();
+        itemCache.evict(itemId);
+        availabilityCache.evict(itemId);
+        requestFeed.deleteItem(itemId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ItemDto> search(String text, Integer from, Integer size) {
-        Pageable page = PageRequest.of(from / size, size);
         if (text == null || text.isBlank()) {
             return new ArrayList<>();
         }
-        return itemRepository.searchAvailableItems(text, page).stream()
-                .map(ItemMapper::toItemDto)
-                .collect(Collectors.toList());
+        return searchCache.get(text, from, size);
     }
 
     @Override
@@ -154,6 +317,66 @@ public class ItemServiceImpl implements ItemService {
                 .getOwnerId();
     }
 
+    // без транзакции: попадание в кэш не должно занимать соединение с базой
+    @Override
+    public ItemAvailabilityDto findAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new TimeDataException(String.format("Invalid period start = %s  end = %s", from, to));
+        }
+        return availabilityCache.get(itemId, from, to, () -> {
+            if (!itemRepository.existsById(itemId)) {
+                throw new NotFoundException(String.format("Item with id = %d not found.", itemId));
+            }
+            return toAvailability(itemId, from, to,
+                    bookingRepository.findIntervalsInWindow(itemId, BookingStatus.REJECTED, from, to));
+        });
+    }
+
+    // один проход по интервалам, отсортированным по началу: склеиваем пересечения и собираем промежутки
+    static ItemAvailabilityDto toAvailability(Long itemId, LocalDateTime from, LocalDateTime to,
+                                              List<BookingInterval> intervals) {
+        List<ItemAvailabilityDto.Interval> busy = new ArrayList<>();
+        List<ItemAvailabilityDto.Interval> free = new ArrayList<>();
+        LocalDateTime busyStart = null;
+        LocalDateTime busyEnd = from;
+        for (BookingInterval interval : intervals) {
+            LocalDateTime start = interval.getStart().isBefore(from) ? from : interval.getStart();
+            LocalDateTime end = interval.getEnd().isAfter(to) ? to : interval.getEnd();
+            if (busyStart != null && !start.isAfter(busyEnd)) {
+                if (end.isAfter(busyEnd)) {
+                    busyEnd = end;
+                }
+                continue;
+            }
+            if (busyStart != null) {
+                busy.add(new ItemAvailabilityDto.Interval(busyStart, busyEnd));
+            }
+            if (start.isAfter(busyEnd)) {
+                free.add(new ItemAvailabilityDto.Interval(busyEnd, start));
+            }
+            busyStart = start;
+            busyEnd = end;
+        }
+        if (busyStart != null) {
+            busy.add(new ItemAvailabilityDto.Interval(busyStart, busyEnd));
+        }
+        if (busyEnd.isBefore(to)) {
+            free.add(new ItemAvailabilityDto.Interval(busyEnd, to));
+        }
+        return new ItemAvailabilityDto(itemId, from, to, List.copyOf(free), List.copyOf(busy));
+    }
+
+    // без транзакции, как и findAvailability: вещь берётся из кэша, запросы - из индекса
+    @Override
+    public List<ItemRequestDto> findMatchingRequests(Long itemId, Long userId, Integer size) {
+        ItemCache.CachedItem cached = itemCache.get(itemId, this::loadItem);
+        if (!Objects.equals(cached.getOwnerId(), userId)) {
+            throw new OperationAccessException(String.format("User with id = %d is not the owner of item with id = %d.",
+                    userId, itemId));
+        }
+        return matchIndex.match(cached.getItem().getName(), cached.getItem().getDescription(), userId, size);
+    }
+
     @Override
     @Transactional
     public CommentDto addComment(Long itemId, Long userId, CommentDto commentDto) {
@@ -163,12 +386,15 @@ public class ItemServiceImpl implements ItemService {
         List<Booking> bookings = bookingRepository
                 .findAllByItemIdAndBookerIdAndStatusIsAndEndIsBefore(itemId, userId, BookingStatus.APPROVED, LocalDateTime.now());
         log.info(bookings.toString());
-        if (!bookings.isEmpty() && bookings.get(0).getStart().isBefore(LocalDateTime.now())) {
+        if (!bookings.isEmpty() && bookings.get(0).getStart().isBefore(LocalDateTime.now())
+                || archiveRepository.existsByItemIdAndBookerIdAndStatus(itemId, userId, BookingStatus.APPROVED)) {
             Comment comment = CommentMapper.toComment(commentDto);
             comment.setItem(item);
             comment.setAuthor(user);
             comment.setCreated(LocalDateTime.now());
-            return CommentMapper.toDto(commentRepository.save(comment));
+            comment = commentRepository.save(comment);
+            itemCache.evict(itemId);
+            return CommentMapper.toDto(comment);
         } else {
             throw new NotAvailableException(String.format("Booking for User with id = %d and Item with id = %d not found.", userId, itemId));
         }
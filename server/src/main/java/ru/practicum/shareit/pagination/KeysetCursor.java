@@ -0,0 +1,63 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// курсор keyset-пагинации: последняя выданная пара (время, id), пустой курсор - первая страница
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    public static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime time;
+    private final Long id;
+
+    public static KeysetCursor firstDescending() {
+        return new KeysetCursor(MAX_TIME, Long.MAX_VALUE);
+    }
+
+    public static KeysetCursor firstAscending() {
+        return new KeysetCursor(MIN_TIME, 0L);
+    }
+
+    public static KeysetCursor decode(String token, KeysetCursor first) {
+        if (token == null || token.isBlank()) {
+            return first;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            String time = value.substring(0, separator);
+            return new KeysetCursor(time.isEmpty() ? null : LocalDateTime.parse(time),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException(String.format("Invalid cursor: %s", token));
+        }
+    }
+
+    public String encode() {
+        String value = (time != null ? time.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static <T> ResponseEntity<List<T>> toResponse(List<T> page, int size, Function<T, KeysetCursor> cursorOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!page.isEmpty() && page.size() == size) {
+            response.header(NEXT_CURSOR_HEADER, cursorOf.apply(page.get(page.size() - 1)).encode());
+        }
+        return response.body(page);
+    }
+}
@@ -1,8 +1,12 @@
 package ru.practicum.shareit.request.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.pagination.KeysetCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
 
@@ -13,6 +17,7 @@ import java.util.List;
 
 
 @RestController
+@Validated
 @RequestMapping(path = "/requests")
 @RequiredArgsConstructor
 public class ItemRequestController {
@@ -31,10 +36,21 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDto> findAllRequests(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                                @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                @Positive @RequestParam(defaultValue = "10") Integer size) {
-        return requestService.findAllRequests(userId, from, size);
+    public ResponseEntity<List<ItemRequestDto>> findAllRequests(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                                @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                                @RequestParam(required = false) String cursor) {
+        if (cursor == null) {
+            return ResponseEntity.ok(requestService.findAllRequests(userId, from, size));
+        }
+        return KeysetCursor.toResponse(requestService.findAllRequests(userId,
+                        KeysetCursor.decode(cursor, KeysetCursor.firstDescending()), size), size,
+                request -> new KeysetCursor(request.getCreated(), request.getId()));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader("X-Sharer-User-Id") Long userId) {
+        return requestService.subscribe(userId);
     }
 
     @GetMapping
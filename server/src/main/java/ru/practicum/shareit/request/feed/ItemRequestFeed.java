@@ -0,0 +1,244 @@
+package ru.practicum.shareit.request.feed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.util.TransactionHelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+// последние запросы с вещами, общие для всех пользователей: чужие запросы выбираются из окна на лету.
+// Окно - непрерывное начало ленты, страницы за его пределами читаются из базы
+@Component
+@Slf4j
+public class ItemRequestFeed {
+    private static final Comparator<ItemRequestDto> NEWEST_FIRST = Comparator
+            .comparing(ItemRequestDto::getCreated)
+            .thenComparing(ItemRequestDto::getId)
+            .reversed();
+
+    private final ItemRequestRepository requestRepository;
+    private final ItemRepository itemRepository;
+    private final int maxSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // одна перестройка за раз: при старте и по расписанию
+    private final Object rebuildMonitor = new Object();
+
+    private final List<ItemRequestDto> requests = new ArrayList<>();
+    // изменения, закоммиченные во время перестройки: загрузка могла прочитать базу до них
+    private final List<Runnable> pending = new ArrayList<>();
+    // в окне все запросы из базы: короткую страницу можно отдавать без запроса в базу
+    private boolean complete;
+    private boolean rebuilding;
+    private boolean ready;
+
+    public ItemRequestFeed(ItemRequestRepository requestRepository,
+                           ItemRepository itemRepository,
+                           @Value("${shareit.requests.feed.size:1000}") int maxSize) {
+        this.requestRepository = requestRepository;
+        this.itemRepository = itemRepository;
+        this.maxSize = maxSize;
+    }
+
+    // перезагрузка по расписанию подхватывает запросы, созданные на других экземплярах
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${shareit.requests.feed.refresh-interval:PT1M}",
+            initialDelayString = "${shareit.requests.feed.refresh-interval:PT1M}")
+    public void rebuild() {
+        synchronized (rebuildMonitor) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = true;
+                pending.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                List<ItemRequest> newest = requestRepository.findAllByOrderByCreatedDescIdDesc(
+                        PageRequest.ofSize(maxSize));
+                List<ItemRequestDto> loaded = newest.isEmpty() ? List.of() : ItemRequestMapper.toItemRequestDto(
+                        newest, itemRepository.findAllByRequestIds(newest.stream()
+                                .map(ItemRequest::getId)
+                                .collect(Collectors.toList())));
+                lock.writeLock().lock();
+                try {
+                    requests.clear();
+                    requests.addAll(loaded);
+                    complete = loaded.size() < maxSize;
+                    // изменения идемпотентны: повтор того, что загрузка уже увидела, ничего не меняет
+                    pending.forEach(Runnable::run);
+                    ready = true;
+                    log.debug("Item request feed rebuilt: {} requests, {} replayed changes, complete = {}",
+                            requests.size(), pending.size(), complete);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    rebuilding = false;
+                    pending.clear();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    public Optional<List<ItemRequestDto>> page(Long userId, int from, int size) {
+        return page(userId, request -> true, from / size * size, size);
+    }
+
+    public Optional<List<ItemRequestDto>> pageAfter(Long userId, KeysetCursor cursor, int size) {
+        return page(userId, request -> request.getCreated().isBefore(cursor.getTime())
+                || request.getCreated().isEqual(cursor.getTime()) && request.getId() < cursor.getId(), 0, size);
+    }
+
+    public void add(ItemRequestDto request) {
+        applyAfterCommit(() -> {
+            int position = -Collections.binarySearch(requests, request, NEWEST_FIRST) - 1;
+            if (position < 0) {
+                return;
+            }
+            if (position == requests.size() && !complete) {
+                return;
+            }
+            requests.add(position, request);
+            if (requests.size() > maxSize) {
+                requests.remove(requests.size() - 1);
+                complete = false;
+            }
+        });
+    }
+
+    // новая или изменённая вещь в ответ на запрос из окна
+    public void putItems(Collection<Item> items) {
+        List<ItemDto> changes = items.stream()
+                .filter(item -> item.getItemRequest() != null)
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
+        if (changes.isEmpty()) {
+            return;
+        }
+        applyAfterCommit(() -> {
+            for (ItemDto item : changes) {
+                replaceItems(request -> request.getId().equals(item.getRequestId()), item.getId(), item);
+            }
+        });
+    }
+
+    public void deleteItem(Long itemId) {
+        applyAfterCommit(() -> replaceItems(request -> true, itemId, null));
+    }
+
+    public void updateRequester(UserDto user) {
+        applyAfterCommit(() -> requests.replaceAll(request -> request.getRequester().getId().equals(user.getId())
+                ? copy(request, user, request.getItems()) : request));
+    }
+
+    // удаление пользователя каскадно удаляет его запросы и вещи, в том числе ответы на чужие запросы
+    public void deleteUser(Long userId, Collection<Long> itemIds) {
+        Set<Long> deletedItems = Set.copyOf(itemIds);
+        applyAfterCommit(() -> {
+            requests.removeIf(request -> request.getRequester().getId().equals(userId));
+            if (!deletedItems.isEmpty()) {
+                requests.replaceAll(request -> request.getItems().stream()
+                        .anyMatch(item -> deletedItems.contains(item.getId()))
+                        ? copy(request, request.getRequester(), request.getItems().stream()
+                                .filter(item -> !deletedItems.contains(item.getId()))
+                                .collect(Collectors.toList()))
+                        : request);
+            }
+        });
+    }
+
+    // изменение окна после коммита; во время перестройки оно же повторяется на новой загрузке
+    private void applyAfterCommit(Runnable change) {
+        TransactionHelper.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                change.run();
+                if (rebuilding) {
+                    pending.add(change);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private Optional<List<ItemRequestDto>> page(Long userId, Predicate<ItemRequestDto> after, int offset, int size) {
+        if (!ready || !lock.readLock().tryLock()) {
+            return Optional.empty();
+        }
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            List<ItemRequestDto> page = requests.stream()
+                    .filter(after)
+                    .filter(request -> !request.getRequester().getId().equals(userId))
+                    .skip(offset)
+                    .limit(size)
+                    .collect(Collectors.toList());
+            // короткая страница у конца неполного окна: продолжение ленты есть только в базе
+            return page.size() == size || complete ? Optional.of(page) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // отдаём запросы наружу без копирования, поэтому меняем их только заменой целиком
+    private void replaceItems(Predicate<ItemRequestDto> target, Long itemId, ItemDto item) {
+        requests.replaceAll(request -> {
+            if (!target.test(request)) {
+                return request;
+            }
+            List<ItemDto> items = request.getItems().stream()
+                    .filter(existing -> !existing.getId().equals(itemId))
+                    .collect(Collectors.toCollection(ArrayList::new));
+            if (item == null && items.size() == request.getItems().size()) {
+                return request;
+            }
+            if (item != null) {
+                items.add(item);
+                items.sort(Comparator.comparing(ItemDto::getId));
+            }
+            return copy(request, request.getRequester(), items);
+        });
+    }
+
+    private static ItemRequestDto copy(ItemRequestDto request, UserDto requester, List<ItemDto> items) {
+        return ItemRequestDto.builder()
+                .id(request.getId())
+                .description(request.getDescription())
+                .requester(requester)
+                .created(request.getCreated())
+                .items(List.copyOf(items))
+                .build();
+    }
+}
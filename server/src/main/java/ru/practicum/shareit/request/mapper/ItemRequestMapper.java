@@ -1,28 +1,41 @@
 package ru.practicum.shareit.request.mapper;
 
+import ru.practicum.shareit.item.dto.ItemShortDto;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.mapper.UserMapper;
 
-import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 public class ItemRequestMapper {
     public static ItemRequestDto toItemRequestDto(ItemRequest request) {
+        return toItemRequestDto(request, List.of());
+    }
+
+    public static ItemRequestDto toItemRequestDto(ItemRequest request, List<ItemShortDto> items) {
         return ItemRequestDto.builder()
                 .id(request.getId())
                 .description(request.getDescription())
                 .created(request.getCreated())
                 .requester(UserMapper.toUserDto(request.getRequester()))
-                .items(request.getItems() != null ? request.getItems()
-                        .stream()
+                .items(items.stream()
                         .map(ItemMapper::toItemDto)
-                        .collect(Collectors.toList())
-                        : new ArrayList<>())
+                        .collect(Collectors.toList()))
                 .build();
     }
 
+    // вещи всех запросов одним списком: раскладываем по запросам
+    public static List<ItemRequestDto> toItemRequestDto(List<ItemRequest> requests, List<ItemShortDto> items) {
+        Map<Long, List<ItemShortDto>> byRequest = items.stream()
+                .collect(Collectors.groupingBy(ItemShortDto::getRequestId));
+        return requests.stream()
+                .map(request -> toItemRequestDto(request, byRequest.getOrDefault(request.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
     public static ItemRequest toItemRequest(ItemRequestDto requestDto) {
         return ItemRequest.builder()
                 .id(requestDto.getId())
@@ -0,0 +1,242 @@
+package ru.practicum.shareit.request.match;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.search.TextTokenizer;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.util.TransactionHelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+// индекс слов из описаний открытых запросов (на них ещё нет вещей): подбор запросов для вещи без обращения к базе.
+// Хранит не больше max-size самых новых запросов
+@Component
+@Slf4j
+public class ItemRequestMatchIndex {
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final int NAME_WEIGHT = 2;
+    // короткие слова ("и", "на", "для") почти не отличают один запрос от другого
+    private static final int MIN_TOKEN_LENGTH = 3;
+    // слово из большей доли запросов ("нужна", "ищу") не влияет на порядок, а обходить его список долго
+    private static final double COMMON_TOKEN_SHARE = 0.25;
+    private static final int COMMON_TOKEN_MIN_REQUESTS = 100;
+
+    private final ItemRequestRepository requestRepository;
+    private final int maxSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // одна перестройка за раз: при старте и по расписанию
+    private final Object rebuildMonitor = new Object();
+
+    // по id: при переполнении вытесняем самый старый запрос
+    private final TreeMap<Long, Document> documents = new TreeMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    // изменения, закоммиченные во время перестройки: загрузка могла прочитать базу до них
+    private final List<Runnable> pending = new ArrayList<>();
+    private boolean rebuilding;
+
+    public ItemRequestMatchIndex(ItemRequestRepository requestRepository,
+                                 @Value("${shareit.requests.match.max-size:100000}") int maxSize) {
+        this.requestRepository = requestRepository;
+        this.maxSize = maxSize;
+    }
+
+    // перезагрузка по расписанию подхватывает запросы с других экземпляров и снова открытые после удаления вещей
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${shareit.requests.match.refresh-interval:PT10M}",
+            initialDelayString = "${shareit.requests.match.refresh-interval:PT10M}")
+    public void rebuild() {
+        synchronized (rebuildMonitor) {
+            lock.writeLock().lock();
+            try {
+                rebuilding = true;
+                pending.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                List<Document> loaded = new ArrayList<>();
+                long beforeId = Long.MAX_VALUE;
+                List<ItemRequest> batch;
+                do {
+                    batch = requestRepository.findOpenBefore(beforeId,
+                            PageRequest.ofSize(Math.min(LOAD_BATCH_SIZE, maxSize - loaded.size())));
+                    for (ItemRequest request : batch) {
+                        loaded.add(new Document(ItemRequestMapper.toItemRequestDto(request, List.of())));
+                        beforeId = request.getId();
+                    }
+                } while (batch.size() == LOAD_BATCH_SIZE && loaded.size() < maxSize);
+                lock.writeLock().lock();
+                try {
+                    documents.clear();
+                    postings.clear();
+                    loaded.forEach(this::add);
+                    // изменения идемпотентны: повтор того, что загрузка уже увидела, ничего не меняет
+                    pending.forEach(Runnable::run);
+                    log.debug("Item request match index rebuilt: {} open requests, {} replayed changes, {} tokens",
+                            documents.size(), pending.size(), postings.size());
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    rebuilding = false;
+                    pending.clear();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    public void add(ItemRequestDto request) {
+        Document document = new Document(request);
+        applyAfterCommit(() -> {
+            add(document);
+            if (documents.size() > maxSize) {
+                remove(documents.firstKey());
+            }
+        });
+    }
+
+    // на запрос ответили вещью - он больше не открыт
+    public void close(Collection<Long> requestIds) {
+        if (requestIds.isEmpty()) {
+            return;
+        }
+        applyAfterCommit(() -> requestIds.forEach(this::remove));
+    }
+
+    public void updateRequester(UserDto user) {
+        applyAfterCommit(() -> documents.replaceAll((id, document) ->
+                document.request.getRequester().getId().equals(user.getId()) ? document.withRequester(user) : document));
+    }
+
+    // удаление пользователя каскадно удаляет его запросы
+    public void deleteRequester(Long userId) {
+        applyAfterCommit(() -> documents.values().stream()
+                .filter(document -> document.request.getRequester().getId().equals(userId))
+                .map(document -> document.request.getId())
+                .collect(Collectors.toList())
+                .forEach(this::remove));
+    }
+
+    // чужие открытые запросы по убыванию суммы idf общих с вещью слов; слова названия весят больше
+    public List<ItemRequestDto> match(String name, String description, Long ownerId, int limit) {
+        Map<String, Integer> weights = new HashMap<>();
+        tokens(description).forEach(token -> weights.put(token, 1));
+        tokens(name).forEach(token -> weights.put(token, NAME_WEIGHT));
+        lock.readLock().lock();
+        try {
+            int total = documents.size();
+            Map<Long, Double> scores = new HashMap<>();
+            weights.forEach((token, weight) -> {
+                Set<Long> ids = postings.get(token);
+                if (ids == null || total >= COMMON_TOKEN_MIN_REQUESTS && ids.size() > total * COMMON_TOKEN_SHARE) {
+                    return;
+                }
+                double idf = Math.log(1 + (total - ids.size() + 0.5) / (ids.size() + 0.5));
+                for (Long id : ids) {
+                    scores.merge(id, weight * idf, Double::sum);
+                }
+            });
+            return scores.entrySet().stream()
+                    .filter(entry -> !documents.get(entry.getKey()).request.getRequester().getId().equals(ownerId))
+                    .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                    .limit(limit)
+                    .map(entry -> documents.get(entry.getKey()).request)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // изменение индекса после коммита; во время перестройки оно же повторяется на новой загрузке
+    private void applyAfterCommit(Runnable change) {
+        TransactionHelper.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                change.run();
+                if (rebuilding) {
+                    pending.add(change);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void add(Document document) {
+        long id = document.request.getId();
+        remove(id);
+        documents.put(id, document);
+        for (String token : document.tokens) {
+            postings.computeIfAbsent(token, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void remove(long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String token : document.tokens) {
+            Set<Long> ids = postings.get(token);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    private static Set<String> tokens(String text) {
+        return TextTokenizer.tokens(TextTokenizer.normalize(text)).stream()
+                .filter(token -> token.length() >= MIN_TOKEN_LENGTH)
+                .collect(Collectors.toSet());
+    }
+
+    private static final class Document {
+        // отдаём наружу без копирования, поэтому меняем только заменой целиком
+        private final ItemRequestDto request;
+        private final Set<String> tokens;
+
+        private Document(ItemRequestDto request) {
+            this(request, tokens(request.getDescription()));
+        }
+
+        private Document(ItemRequestDto request, Set<String> tokens) {
+            this.request = request;
+            this.tokens = tokens;
+        }
+
+        private Document withRequester(UserDto requester) {
+            return new Document(ItemRequestDto.builder()
+                    .id(request.getId())
+                    .description(request.getDescription())
+                    .requester(requester)
+                    .created(request.getCreated())
+                    .items(request.getItems())
+                    .build(), tokens);
+        }
+    }
+}
@@ -1,15 +1,45 @@
 package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
+    // автор нужен в ответе: загружаем его тем же запросом, а не отдельным на каждого.
+    // Условие по r.requester.id, а не по соединённой таблице users: иначе индекс по requester_id не используется
+    @EntityGraph(attributePaths = "requester")
+    @Query("select r from ItemRequest r where r.requester.id = :userId order by r.created desc")
     List<ItemRequest> findAllByRequesterIdOrderByCreatedDesc(long userId);
 
+    @EntityGraph(attributePaths = "requester")
+    @Query("select r from ItemRequest r where r.requester.id <> :userId")
     List<ItemRequest> findAllByRequesterIdIsNot(long userId, Pageable page);
+
+    @EntityGraph(attributePaths = "requester")
+    List<ItemRequest> findAllByOrderByCreatedDescIdDesc(Pageable page);
+
+    // лента от новых к старым, keyset по (created, id). Условие r.created <= :created лишнее по смыслу,
+    // но без него условие с or не становится диапазоном по индексу (created, id)
+    @EntityGraph(attributePaths = "requester")
+    @Query("select r from ItemRequest r " +
+            "where r.requester.id <> :userId " +
+            "and r.created <= :created " +
+            "and (r.created < :created or (r.created = :created and r.id < :id)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequest> findAllByRequesterIdIsNotAfter(long userId, LocalDateTime created, Long id, Pageable page);
+
+    // открытые запросы - на них ещё нет вещей, от новых к старым
+    @EntityGraph(attributePaths = "requester")
+    @Query("select r from ItemRequest r " +
+            "where r.id < :beforeId " +
+            "and not exists (select i.id from Item i where i.itemRequest.id = r.id) " +
+            "order by r.id desc")
+    List<ItemRequest> findOpenBefore(long beforeId, Pageable page);
 }
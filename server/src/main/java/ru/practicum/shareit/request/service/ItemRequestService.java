@@ -1,5 +1,7 @@
 package ru.practicum.shareit.request.service;
 
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.pagination.KeysetCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.List;
@@ -11,5 +13,9 @@ public interface ItemRequestService {
 
     public List<ItemRequestDto> findAllRequests(Long userId, int from, int size);
 
+    public List<ItemRequestDto> findAllRequests(Long userId, KeysetCursor cursor, int size);
+
     public List<ItemRequestDto> findAllUserRequests(Long userId);
+
+    public SseEmitter subscribe(Long userId);
 }
@@ -6,16 +6,22 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.KeysetCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.match.ItemRequestMatchIndex;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.stream.ItemRequestStream;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -25,6 +31,9 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRequestRepository requestRepository;
     private final UserServiceImpl userService;
     private final ItemRepository itemRepository;
+    private final ItemRequestFeed feed;
+    private final ItemRequestStream stream;
+    private final ItemRequestMatchIndex matchIndex;
 
     @Override
     @Transactional
@@ -32,9 +41,14 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         ItemRequest itemRequest = ItemRequest.builder()
                 .description(itemRequestDto.getDescription())
                 .requester(UserMapper.toUser(userService.findUserById(userId)))
-                .created(LocalDateTime.now())
+                // в базе микросекунды: лента, ответ и курсор должны видеть то же время, что и база
+                .created(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS))
                 .build();
-        return ItemRequestMapper.toItemRequestDto(requestRepository.save(itemRequest));
+        ItemRequestDto created = ItemRequestMapper.toItemRequestDto(requestRepository.save(itemRequest));
+        feed.add(created);
+        stream.publish(created);
+        matchIndex.add(created);
+        return created;
     }
 
     @Override
@@ -42,8 +56,8 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     public ItemRequestDto findById(Long userId, Long requestId) {
         ItemRequest itemRequest = requestRepository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException(String.format("Request with id = %d not found.", requestId)));
-        itemRequest.setItems(itemRepository.findAllByItemRequest(itemRequest));
-        ItemRequestDto itemRequestDto = ItemRequestMapper.toItemRequestDto(itemRequest);
+        ItemRequestDto itemRequestDto = ItemRequestMapper.toItemRequestDto(itemRequest,
+                itemRepository.findAllByRequestIds(List.of(requestId)));
         itemRequestDto.setRequester(userService.findUserById(userId));
         return itemRequestDto;
     }
@@ -51,22 +65,42 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     @Transactional(readOnly = true)
     public List<ItemRequestDto> findAllRequests(Long userId, int from, int size) {
-        UserMapper.toUser(userService.findUserById(userId));
-        Pageable page = PageRequest.of(from / size, size, Sort.by("created"));
-        return requestRepository.findAllByRequesterIdIsNot(userId, page).stream()
-                .peek(itemRequest -> itemRequest.setItems(itemRepository.findAllByItemRequest(itemRequest)))
-                .map(ItemRequestMapper::toItemRequestDto)
-                .collect(Collectors.toList());
+        userService.findUserById(userId);
+        return feed.page(userId, from, size).orElseGet(() -> {
+            Pageable page = PageRequest.of(from / size, size,
+                    Sort.by(Sort.Direction.DESC, "created").and(Sort.by(Sort.Direction.DESC, "id")));
+            return toItemRequestDto(requestRepository.findAllByRequesterIdIsNot(userId, page));
+        });
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemRequestDto> findAllRequests(Long userId, KeysetCursor cursor, int size) {
+        userService.findUserById(userId);
+        return feed.pageAfter(userId, cursor, size).orElseGet(() -> toItemRequestDto(requestRepository
+                .findAllByRequesterIdIsNotAfter(userId, cursor.getTime(), cursor.getId(), PageRequest.ofSize(size))));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ItemRequestDto> findAllUserRequests(Long userId) {
         userService.findUserById(userId);
-        return requestRepository.findAllByRequesterIdOrderByCreatedDesc(userId).stream()
-                .peek(i -> i.setItems(itemRepository.findAllByItemRequest(i)))
-                .map(ItemRequestMapper::toItemRequestDto)
-                .collect(Collectors.toList());
+        return toItemRequestDto(requestRepository.findAllByRequesterIdOrderByCreatedDesc(userId));
+    }
+
+    @Override
+    public SseEmitter subscribe(Long userId) {
+        userService.findUserById(userId);
+        return stream.subscribe(userId);
+    }
+
+    // вещи всех запросов страницы одним запросом
+    private List<ItemRequestDto> toItemRequestDto(List<ItemRequest> requests) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        return ItemRequestMapper.toItemRequestDto(requests, itemRepository.findAllByRequestIds(requests.stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toList())));
     }
 }
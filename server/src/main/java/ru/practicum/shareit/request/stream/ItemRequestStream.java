@@ -0,0 +1,149 @@
+package ru.practicum.shareit.request.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.util.TransactionHelper;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// рассылка новых запросов подписчикам SSE. Публикация только кладёт событие в очередь подписчика,
+// отправляют отдельные потоки, поэтому медленный клиент не задерживает создание запроса и других подписчиков
+@Component
+@Slf4j
+public class ItemRequestStream {
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong subscriberIds = new AtomicLong();
+    private final ExecutorService senders;
+    private final int bufferSize;
+    private final Duration timeout;
+    private final Counter evicted;
+
+    public ItemRequestStream(MeterRegistry meterRegistry,
+                             @Value("${shareit.requests.stream.buffer-size:64}") int bufferSize,
+                             @Value("${shareit.requests.stream.timeout:PT30M}") Duration timeout,
+                             @Value("${shareit.requests.stream.senders:4}") int senders) {
+        AtomicLong threadIds = new AtomicLong();
+        this.senders = Executors.newFixedThreadPool(senders, runnable -> {
+            Thread thread = new Thread(runnable, "request-stream-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.evicted = Counter.builder("requests.stream.evicted")
+                .description("Subscribers disconnected because their buffer overflowed")
+                .register(meterRegistry);
+        Gauge.builder("requests.stream.subscribers", subscribers, Map::size)
+                .description("Open request stream connections")
+                .register(meterRegistry);
+    }
+
+    // по истечении timeout поток закрывается, клиент (EventSource) переподключается сам
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(subscriberIds.incrementAndGet(), userId, emitter,
+                new ArrayBlockingQueue<>(bufferSize), new AtomicBoolean(), new AtomicBoolean());
+        subscribers.put(subscriber.id, subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber.id));
+        emitter.onError(e -> subscribers.remove(subscriber.id));
+        return emitter;
+    }
+
+    // свой запрос автору не отправляется, как и в ленте /requests/all
+    public void publish(ItemRequestDto request) {
+        TransactionHelper.afterCommit(() -> subscribers.values().forEach(subscriber -> {
+            if (!subscriber.userId.equals(request.getRequester().getId())) {
+                offer(subscriber, () -> SseEmitter.event()
+                        .id(String.valueOf(request.getId()))
+                        .name("request")
+                        .data(request));
+            }
+        }));
+    }
+
+    // держит соединение через прокси и находит отключившихся клиентов: отправка им завершается ошибкой
+    @Scheduled(fixedDelayString = "${shareit.requests.stream.heartbeat:PT15S}",
+            initialDelayString = "${shareit.requests.stream.heartbeat:PT15S}")
+    public void heartbeat() {
+        subscribers.values().forEach(subscriber -> offer(subscriber, () -> SseEmitter.event().comment("heartbeat")));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribers.values().forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    // событие собирается при отправке: SseEventBuilder нельзя отправить дважды
+    private void offer(Subscriber subscriber, Supplier<SseEmitter.SseEventBuilder> event) {
+        if (!subscriber.queue.offer(event) && subscribers.remove(subscriber.id) != null) {
+            // медленный клиент: не копим для него события, после переподключения он дочитает ленту.
+            // Закрывает поток отправитель: emitter может быть занят записью, публикация ждать её не должна
+            evicted.increment();
+            log.debug("Request stream subscriber {} of user {} evicted: buffer of {} events is full.",
+                    subscriber.id, subscriber.userId, bufferSize);
+            subscriber.evicted.set(true);
+        }
+        schedule(subscriber);
+    }
+
+    // у подписчика не больше одной задачи отправки: события уходят по порядку
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            Supplier<SseEmitter.SseEventBuilder> event;
+            while (!subscriber.evicted.get() && (event = subscriber.queue.poll()) != null) {
+                subscriber.emitter.send(event.get());
+            }
+            if (subscriber.evicted.get()) {
+                subscriber.queue.clear();
+                subscriber.emitter.complete();
+                return;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // ошибку записи контейнер доведёт до onError/onCompletion сам
+            subscribers.remove(subscriber.id);
+            return;
+        } finally {
+            subscriber.sending.set(false);
+        }
+        // событие могло попасть в очередь между последним poll и сбросом флага
+        if (!subscriber.queue.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Subscriber {
+        private final long id;
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> queue;
+        private final AtomicBoolean sending;
+        private final AtomicBoolean evicted;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.scheduling;
+
+import lombok.*;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// аренда задачи: выполняет тот узел, который последним занял строку и ещё не отпустил её
+@Entity
+@Table(name = "scheduler_locks")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class SchedulerLock {
+    @Id
+    @Column(name = "name", nullable = false)
+    private String name;
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+    @Column(name = "locked_by")
+    private String lockedBy;
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.scheduling;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLock l set l.lockedUntil = :until, l.lockedBy = :node " +
+            "where l.name = :name and (l.lockedUntil <= :now or l.lockedBy = :node)")
+    int acquire(String name, String node, LocalDateTime now, LocalDateTime until);
+
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLock l set l.lockedUntil = :now " +
+            "where l.name = :name and l.lockedBy = :node")
+    int release(String name, String node, LocalDateTime now);
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.scheduling;
+
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// строки блокировок заводятся в schema.sql, по одной на задачу
+@Service
+public class SchedulerLockService {
+    private final SchedulerLockRepository lockRepository;
+    private final String node = UUID.randomUUID().toString();
+
+    public SchedulerLockService(SchedulerLockRepository lockRepository) {
+        this.lockRepository = lockRepository;
+    }
+
+    // занимает задачу не дольше чем на ttl: если узел упал, аренда истечёт сама
+    public boolean tryLock(String name, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        return lockRepository.acquire(name, node, now, now.plus(ttl)) > 0;
+    }
+
+    public void unlock(String name) {
+        lockRepository.release(name, node, LocalDateTime.now());
+    }
+}
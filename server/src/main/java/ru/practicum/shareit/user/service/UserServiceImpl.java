@@ -3,13 +3,26 @@ package ru.practicum.shareit.user.service;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.archive.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.cache.ItemAvailabilityCache;
+import ru.practicum.shareit.item.cache.ItemCache;
+import ru.practicum.shareit.item.cache.ItemSearchCache;
+import ru.practicum.shareit.item.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.pointer.BookingPointerService;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
+import ru.practicum.shareit.request.match.ItemRequestMatchIndex;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static ru.practicum.shareit.user.mapper.UserMapper.toUser;
@@ -19,6 +32,17 @@ import static ru.practicum.shareit.user.mapper.UserMapper.toUserDto;
 @AllArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final CommentRepository commentRepository;
+    private final ItemCache itemCache;
+    private final ItemRepository itemRepository;
+    private final ItemSearchIndex searchIndex;
+    private final ItemSearchCache searchCache;
+    private final ItemRequestFeed requestFeed;
+    private final ItemRequestMatchIndex matchIndex;
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final BookingPointerService pointerService;
+    private final ItemAvailabilityCache availabilityCache;
 
     @Override
     @Transactional
@@ -51,12 +75,38 @@ public class UserServiceImpl implements UserService {
         if (userDto.getEmail() != null) {
             user.setEmail(userDto.getEmail());
         }
-        return toUserDto(userRepository.save(user));
+        UserDto updated = toUserDto(userRepository.save(user));
+        // имя автора хранится в закэшированных комментариях
+        if (userDto.getName() != null) {
+            commentRepository.findItemIdsByAuthorId(userId).forEach(itemCache::evict);
+        }
+        requestFeed.updateRequester(updated);
+        matchIndex.updateRequester(updated);
+        return updated;
     }
 
     @Override
     @Transactional
     public void delete(Long userId) {
+        // вещи удаляются каскадом в базе: их id нужны индексам до удаления
+        List<Long> itemIds = itemRepository.findIdsByOwnerId(userId);
+        // его бронирования чужих вещей тоже удаляются каскадом: указатели этих вещей пересчитываем
+        Set<Long> bookedItemIds = new HashSet<>(bookingRepository.findItemIdsByBookerId(userId));
+        bookedItemIds.addAll(archivedBookingRepository.findItemIdsByBookerId(userId));
+        bookedItemIds.removeAll(itemIds);
         userRepository.deleteById(userId);
+        // каскад выполняет база: пересчёт должен читать бронирования уже после удаления
+        userRepository.flush();
+        pointerService.refresh(bookedItemIds);
+        searchIndex.deleteAll(itemIds);
+        if (!itemIds.isEmpty()) {
+            searchCache.invalidateAll();
+        }
+        itemCache.evictAll();
+        // занятость удалённых вещей и вещей, освобождённых от его бронирований
+        itemIds.forEach(availabilityCache::evict);
+        bookedItemIds.forEach(availabilityCache::evict);
+        requestFeed.deleteUser(userId, itemIds);
+        matchIndex.deleteRequester(userId);
     }
 }
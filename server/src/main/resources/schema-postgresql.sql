@@ -0,0 +1,24 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_items_name_trgm
+    ON items USING gin (upper(name) gin_trgm_ops) WHERE is_available;
+
+CREATE INDEX IF NOT EXISTS idx_items_description_trgm
+    ON items USING gin (upper(description) gin_trgm_ops) WHERE is_available;
+
+CREATE INDEX IF NOT EXISTS idx_items_fts
+    ON items USING gin (to_tsvector('simple', name || ' ' || description)) WHERE is_available;
+
+-- загрузка активных интервалов при старте
+CREATE INDEX IF NOT EXISTS idx_bookings_active_end
+    ON bookings (end_date) WHERE status IN ('WAITING', 'APPROVED');
+
+-- просроченные заявки для BookingExpiryJob
+CREATE INDEX IF NOT EXISTS idx_bookings_waiting_start
+    ON bookings (start_date) WHERE status = 'WAITING';
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE bookings ADD CONSTRAINT ex_bookings_item_period
+    EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&)
+    WHERE (status IN ('WAITING', 'APPROVED'));
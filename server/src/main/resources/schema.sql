@@ -1,4 +1,7 @@
-DROP TABLE IF EXISTS users, items, bookings, requests, comments ;
+DROP TABLE IF EXISTS users, items, bookings, bookings_archive, requests, comments, booking_events, scheduler_locks ;
+DROP SEQUENCE IF EXISTS items_seq;
+
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
 
 CREATE TABLE IF NOT EXISTS users
 (
@@ -18,19 +21,36 @@ CREATE TABLE IF NOT EXISTS requests
     CONSTRAINT fk_requestor FOREIGN KEY (requester_id) REFERENCES users (id) ON DELETE CASCADE
     );
 
+-- свои запросы: requester_id + сортировка по created
+CREATE INDEX IF NOT EXISTS idx_requests_requester_created ON requests (requester_id, created DESC);
+-- чужие запросы: страницы и keyset от новых к старым по (created, id)
+CREATE INDEX IF NOT EXISTS idx_requests_created_id ON requests (created DESC, id DESC);
+
 CREATE TABLE IF NOT EXISTS items
 (
-    id          BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    id          BIGINT                                  NOT NULL,
     name        VARCHAR(64)                             NOT NULL,
     description VARCHAR(64)                             NOT NULL,
     is_available   BOOLEAN                                 NOT NULL,
     owner_id    BIGINT                                  NOT NULL,
     request_id  BIGINT,
+    last_booking_id    BIGINT,
+    last_booker_id     BIGINT,
+    last_booking_start TIMESTAMP,
+    last_booking_end   TIMESTAMP,
+    next_booking_id    BIGINT,
+    next_booker_id     BIGINT,
+    next_booking_start TIMESTAMP,
+    next_booking_end   TIMESTAMP,
     CONSTRAINT pk_item PRIMARY KEY (id),
     CONSTRAINT fk_items_owner_id FOREIGN KEY (owner_id) REFERENCES users (id) ON DELETE CASCADE,
     CONSTRAINT fk_request FOREIGN KEY (request_id) REFERENCES requests (id)
 );
 
+-- вещи владельца и keyset по id, join бронирований владельца
+CREATE INDEX IF NOT EXISTS idx_items_owner_id ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS idx_items_request_id ON items (request_id);
+
 CREATE TABLE IF NOT EXISTS bookings
 (
     id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -44,6 +64,33 @@ CREATE TABLE IF NOT EXISTS bookings
     CONSTRAINT fk_bookings_booker_id FOREIGN KEY (booker_id) REFERENCES users (id) ON DELETE CASCADE
 );
 
+CREATE INDEX IF NOT EXISTS idx_items_next_booking_start ON items (next_booking_start);
+-- бронирования пользователя: все состояния кроме WAITING/REJECTED, keyset по (start_date, id)
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date DESC, id DESC);
+-- бронирования пользователя с фильтром по статусу
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_status_start ON bookings (booker_id, status, start_date DESC, id DESC);
+-- бронирования вещей владельца, last/next и пересечения
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings (item_id, start_date DESC, id DESC);
+-- подтверждение, проверка права на комментарий и фильтр владельца по статусу
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_start ON bookings (item_id, status, start_date DESC);
+
+-- давно закончившиеся бронирования, переносятся из bookings фоновой задачей с сохранением id
+CREATE TABLE IF NOT EXISTS bookings_archive
+(
+    id         BIGINT      NOT NULL,
+    start_date TIMESTAMP   NOT NULL,
+    end_date   TIMESTAMP   NOT NULL,
+    item_id    BIGINT      NOT NULL,
+    booker_id  BIGINT      NOT NULL,
+    status     VARCHAR(64) NOT NULL,
+    CONSTRAINT pk_bookings_archive PRIMARY KEY (id),
+    CONSTRAINT fk_bookings_archive_item_id FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE,
+    CONSTRAINT fk_bookings_archive_booker_id FOREIGN KEY (booker_id) REFERENCES users (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_booker_start ON bookings_archive (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_item_start ON bookings_archive (item_id, start_date DESC, id DESC);
+
 CREATE TABLE IF NOT EXISTS comments
 (
     id        BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -54,4 +101,42 @@ CREATE TABLE IF NOT EXISTS comments
     CONSTRAINT pk_comments PRIMARY KEY (id),
     CONSTRAINT fk_comments_item_id FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE,
     CONSTRAINT fk_comments_author_id FOREIGN KEY (author_id) REFERENCES users (id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS idx_comments_item_created ON comments (item_id, created);
+
+-- outbox событий бронирований, разбирается диспетчером по возрастанию id.
+-- Неудачная доставка откладывается до next_attempt; после max-attempts событие остаётся с dead_at
+-- и больше не доставляется. Повторить вручную: UPDATE booking_events SET dead_at = NULL, attempts = 0
+CREATE TABLE IF NOT EXISTS booking_events
+(
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    booking_id   BIGINT                                  NOT NULL,
+    item_id      BIGINT                                  NOT NULL,
+    owner_id     BIGINT                                  NOT NULL,
+    booker_id    BIGINT                                  NOT NULL,
+    status       VARCHAR(64)                             NOT NULL,
+    start_date   TIMESTAMP                               NOT NULL,
+    end_date     TIMESTAMP                               NOT NULL,
+    created      TIMESTAMP                               NOT NULL,
+    attempts     INT                                     NOT NULL DEFAULT 0,
+    next_attempt TIMESTAMP                               NOT NULL,
+    dead_at      TIMESTAMP,
+    last_error   VARCHAR(512),
+    CONSTRAINT pk_booking_events PRIMARY KEY (id)
+);
+
+-- более раннее недоставленное событие того же бронирования задерживает следующие
+CREATE INDEX IF NOT EXISTS idx_booking_events_booking_id ON booking_events (booking_id, id);
+
+-- аренды фоновых задач: задачу выполняет один узел
+CREATE TABLE IF NOT EXISTS scheduler_locks
+(
+    name         VARCHAR(64)                             NOT NULL,
+    locked_until TIMESTAMP                               NOT NULL,
+    locked_by    VARCHAR(64),
+    CONSTRAINT pk_scheduler_locks PRIMARY KEY (name)
+);
+
+INSERT INTO scheduler_locks (name, locked_until) VALUES ('booking-expiry', '1970-01-01 00:00:00');
+INSERT INTO scheduler_locks (name, locked_until) VALUES ('booking-archive', '1970-01-01 00:00:00');
@@ -0,0 +1,89 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// ограничения DTO и параметров пагинации проверяются на сервере до вызова сервиса:
+// неверный запрос получает 400 и ничего не пишет в базу
+@SpringBootTest
+@AutoConfigureMockMvc
+@Sql({"classpath:schema.sql", "classpath:test-data.sql"})
+class ControllerValidationTest {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void invalidUserIsRejected() throws Exception {
+        assertBadRequest(json(post("/users"), "{\"name\":\"user\",\"email\":\"not-an-email\"}"));
+        assertBadRequest(json(post("/users"), "{\"name\":\" \",\"email\":\"user@example.com\"}"));
+        assertRows("users", 3);
+    }
+
+    @Test
+    void invalidItemIsRejected() throws Exception {
+        assertBadRequest(json(post("/items").header(USER_HEADER, 1),
+                "{\"name\":\"\",\"description\":\"description\",\"available\":true}"));
+        assertBadRequest(json(post("/items").header(USER_HEADER, 1),
+                "{\"name\":\"name\",\"description\":\"description\"}"));
+        assertRows("items", 14);
+    }
+
+    @Test
+    void blankCommentIsRejected() throws Exception {
+        assertBadRequest(json(post("/items/13/comment").header(USER_HEADER, 2), "{\"text\":\" \"}"));
+        assertRows("comments", 24);
+    }
+
+    @Test
+    void bookingInPastOrWithoutEndIsRejected() throws Exception {
+        assertBadRequest(json(post("/bookings").header(USER_HEADER, 3),
+                "{\"itemId\":14,\"start\":\"2000-01-01T10:00:00\",\"end\":\"2099-01-02T10:00:00\"}"));
+        assertBadRequest(json(post("/bookings").header(USER_HEADER, 3),
+                "{\"itemId\":14,\"start\":\"2099-01-01T10:00:00\"}"));
+        assertRows("bookings", 37);
+    }
+
+    @Test
+    void blankRequestIsRejected() throws Exception {
+        assertBadRequest(json(post("/requests").header(USER_HEADER, 1), "{\"description\":\"\"}"));
+        assertRows("requests", 12);
+    }
+
+    @Test
+    void invalidPagingIsRejected() throws Exception {
+        assertBadRequest(get("/items").header(USER_HEADER, 1).param("size", "0"));
+        assertBadRequest(get("/items/search").param("text", "item").param("from", "-1"));
+        assertBadRequest(get("/items/1/matching-requests").header(USER_HEADER, 1).param("size", "0"));
+        assertBadRequest(get("/bookings").header(USER_HEADER, 2).param("from", "-1"));
+        assertBadRequest(get("/bookings/owner").header(USER_HEADER, 1).param("size", "0"));
+        assertBadRequest(get("/requests/all").header(USER_HEADER, 1).param("size", "0"));
+    }
+
+    private void assertBadRequest(MockHttpServletRequestBuilder request) throws Exception {
+        mvc.perform(request).andExpect(status().isBadRequest());
+    }
+
+    private void assertRows(String table, int expected) {
+        assertEquals(expected, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class), table);
+    }
+
+    private static MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, String body) {
+        return request.contentType(MediaType.APPLICATION_JSON).content(body);
+    }
+}
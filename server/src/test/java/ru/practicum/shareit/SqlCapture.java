@@ -0,0 +1,54 @@
+package ru.practicum.shareit;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// SQL, который Hibernate отправляет в базу из текущего потока за время действия.
+// Подключается в application-test.properties; фоновые потоки не записываются
+public class SqlCapture implements StatementInspector {
+    private static final ThreadLocal<List<String>> RECORDING = new ThreadLocal<>();
+    private static final Pattern TABLE = Pattern.compile("\\b(?:from|into|update)\\s+(\\w+)");
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = RECORDING.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    public static List<String> capture(Action action) throws Exception {
+        List<String> statements = new ArrayList<>();
+        RECORDING.set(statements);
+        try {
+            action.run();
+        } finally {
+            RECORDING.remove();
+        }
+        return statements;
+    }
+
+    // основная таблица каждого запроса по порядку: по ним проверяют, сколько и каких запросов стоит действие
+    public static List<String> tables(Action action) throws Exception {
+        return capture(action).stream()
+                .map(SqlCapture::table)
+                .collect(Collectors.toList());
+    }
+
+    private static String table(String sql) {
+        Matcher matcher = TABLE.matcher(sql.toLowerCase(Locale.ROOT));
+        return matcher.find() ? matcher.group(1) : sql;
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.shareit.booking.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.SqlCapture;
+import ru.practicum.shareit.booking.model.BookingState;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// вещь и бронирующий загружаются тем же запросом, что и бронирования страницы: ни одного отдельного
+// запроса к items и users, кроме проверки пользователя, при любом размере страницы
+@SpringBootTest
+@AutoConfigureMockMvc
+@Sql({"classpath:schema.sql", "classpath:test-data.sql"})
+class BookingControllerStatementCountTest {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    // закончившиеся бронирования могут быть в архиве, текущие, будущие и ожидающие - нет
+    private static final Set<BookingState> ARCHIVED_STATES = Set.of(BookingState.ALL, BookingState.PAST,
+            BookingState.REJECTED);
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void bookerPagesOfEveryState() throws Exception {
+        assertPages("/bookings", 2, false);
+    }
+
+    @Test
+    void bookerCursorPagesOfEveryState() throws Exception {
+        assertPages("/bookings", 2, true);
+    }
+
+    @Test
+    void ownerPagesOfEveryState() throws Exception {
+        assertPages("/bookings/owner", 1, false);
+    }
+
+    @Test
+    void ownerCursorPagesOfEveryState() throws Exception {
+        assertPages("/bookings/owner", 1, true);
+    }
+
+    @Test
+    void fullPageHasItemsAndBookers() throws Exception {
+        assertThat(SqlCapture.tables(() -> mvc.perform(get("/bookings")
+                        .header(USER_HEADER, 2)
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(10)))
+                .andExpect(jsonPath("$[*].item.name", everyItem(notNullValue())))
+                .andExpect(jsonPath("$[*].booker.id", everyItem(notNullValue())))))
+                .containsExactly("users", "bookings", "bookings_archive");
+    }
+
+    @Test
+    void bookingById() throws Exception {
+        assertThat(SqlCapture.tables(() -> mvc.perform(get("/bookings/1").header(USER_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.item.name").value("item 1"))
+                .andExpect(jsonPath("$.booker.id").value(2))))
+                .containsExactly("bookings");
+        // не найдено в основной таблице - ищем в архиве
+        assertThat(SqlCapture.tables(() -> mvc.perform(get("/bookings/1001").header(USER_HEADER, 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.item.name").value("item 1"))))
+                .containsExactly("bookings", "bookings_archive");
+    }
+
+    private void assertPages(String path, long userId, boolean cursor) throws Exception {
+        for (BookingState state : BookingState.values()) {
+            for (int size : new int[]{2, 10}) {
+                MockHttpServletRequestBuilder request = get(path)
+                        .header(USER_HEADER, userId)
+                        .param("state", state.name())
+                        .param("size", String.valueOf(size));
+                if (cursor) {
+                    request.param("cursor", "");
+                }
+                List<String> tables = SqlCapture.tables(() -> mvc.perform(request)
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$[*].item.name", everyItem(notNullValue())))
+                        .andExpect(jsonPath("$[*].booker.id", everyItem(notNullValue()))));
+                assertThat(tables)
+                        .as("%s, state %s, page size %d%s", path, state, size, cursor ? ", cursor" : "")
+                        .containsExactlyElementsOf(ARCHIVED_STATES.contains(state)
+                                ? List.of("users", "bookings", "bookings_archive")
+                                : List.of("users", "bookings"));
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ru.practicum.shareit.booking.event;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// неудачная доставка откладывает только события своего бронирования; исчерпавшее попытки событие
+// остаётся в outbox с отметкой dead_at и не задерживает следующие.
+// Следующее событие бронирования выбирается только после доставки предыдущего: в пачке по одному на бронирование
+@SpringBootTest(properties = {
+        "shareit.bookings.events.max-attempts=2",
+        "shareit.bookings.events.retry-delay=PT1H"
+})
+@Sql("classpath:schema.sql")
+class BookingEventOutboxTest {
+    private static final long FAILING_BOOKING = 1;
+    private static final long OTHER_BOOKING = 2;
+
+    @Autowired
+    private BookingEventOutbox outbox;
+    @Autowired
+    private BookingEventRepository eventRepository;
+    @Autowired
+    private RecordingListener listener;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        listener.delivered.clear();
+        listener.failing.clear();
+    }
+
+    @Test
+    void failedEventIsDelayedWithoutHoldingOtherBookings() {
+        long failed = save(FAILING_BOOKING, 0).getId();
+        long later = save(FAILING_BOOKING, 0).getId();
+        long other = save(OTHER_BOOKING, 0).getId();
+        listener.failing.add(failed);
+
+        outbox.dispatchBatch(10);
+
+        assertThat(listener.delivered).containsExactly(failed, other);
+        Map<String, Object> row = row(failed);
+        assertThat(row.get("attempts")).isEqualTo(1);
+        assertThat(((Timestamp) row.get("next_attempt")).toLocalDateTime())
+                .isAfter(LocalDateTime.now().plusMinutes(59));
+        assertThat((String) row.get("last_error")).contains("delivery failed");
+        assertThat(row.get("dead_at")).isNull();
+
+        // до срока повтора не доставляется ни отложенное событие, ни следующее событие того же бронирования
+        listener.delivered.clear();
+        outbox.dispatchBatch(10);
+        assertThat(listener.delivered).isEmpty();
+        assertThat(ids()).containsExactly(failed, later);
+    }
+
+    @Test
+    void delayedEventIsRetriedWhenDue() {
+        long failed = save(FAILING_BOOKING, 0).getId();
+        long later = save(FAILING_BOOKING, 0).getId();
+        listener.failing.add(failed);
+        outbox.dispatchBatch(10);
+
+        listener.failing.clear();
+        jdbcTemplate.update("UPDATE booking_events SET next_attempt = ? WHERE id = ?",
+                LocalDateTime.now().minusSeconds(1), failed);
+        listener.delivered.clear();
+        outbox.dispatchBatch(10);
+        outbox.dispatchBatch(10);
+
+        assertThat(listener.delivered).containsExactly(failed, later);
+        assertThat(ids()).isEmpty();
+    }
+
+    @Test
+    void exhaustedEventIsDeadLetteredAndReleasesLaterEvents() {
+        long exhausted = save(FAILING_BOOKING, 1).getId();
+        long later = save(FAILING_BOOKING, 0).getId();
+        listener.failing.add(exhausted);
+
+        outbox.dispatchBatch(10);
+
+        Map<String, Object> row = row(exhausted);
+        assertThat(row.get("attempts")).isEqualTo(2);
+        assertThat(row.get("dead_at")).isNotNull();
+
+        outbox.dispatchBatch(10);
+        outbox.dispatchBatch(10);
+        // мёртвое событие больше не доставляется и остаётся для разбора
+        assertThat(listener.delivered).containsExactly(exhausted, later);
+        assertThat(ids()).containsExactly(exhausted);
+    }
+
+    private BookingEvent save(long bookingId, int attempts) {
+        LocalDateTime now = LocalDateTime.now();
+        return eventRepository.save(BookingEvent.builder()
+                .bookingId(bookingId)
+                .itemId(1L)
+                .ownerId(1L)
+                .bookerId(2L)
+                .status(BookingStatus.APPROVED)
+                .start(now.plusDays(1))
+                .end(now.plusDays(2))
+                .created(now)
+                .attempts(attempts)
+                .nextAttempt(now.minusSeconds(1))
+                .build());
+    }
+
+    private Map<String, Object> row(long id) {
+        return jdbcTemplate.queryForMap("SELECT * FROM booking_events WHERE id = ?", id);
+    }
+
+    private List<Long> ids() {
+        return jdbcTemplate.queryForList("SELECT id FROM booking_events ORDER BY id", Long.class);
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+
+    // записывает все попытки доставки; доставка событий из failing падает
+    static class RecordingListener implements BookingEventListener {
+        private final List<Long> delivered = new CopyOnWriteArrayList<>();
+        private final Set<Long> failing = new HashSet<>();
+
+        @Override
+        public void onBookingEvent(BookingEvent event) {
+            delivered.add(event.getId());
+            if (failing.contains(event.getId())) {
+                throw new IllegalStateException("delivery failed");
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.booking.interval;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.NotAvailableException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// интервалы полуоткрытые: бронирование, закончившееся в момент начала другого, с ним не пересекается
+class BookingIntervalIndexTest {
+    private static final long ITEM_ID = 1;
+    private static final LocalDateTime T = LocalDateTime.of(2030, 6, 1, 12, 0);
+
+    private BookingRepository bookingRepository;
+    private BookingIntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        index = new BookingIntervalIndex(bookingRepository, 100, Duration.ofHours(1));
+        when(bookingRepository.findActiveIntervalsByItem(eq(ITEM_ID), any(), any())).thenReturn(List.of(
+                interval(1, T, T.plusDays(1), BookingStatus.APPROVED),
+                interval(2, T.plusDays(2), T.plusDays(3), BookingStatus.WAITING),
+                // длинное бронирование: начинается задолго до проверяемых окон
+                interval(3, T.plusDays(10), T.plusDays(30), BookingStatus.APPROVED)));
+        when(bookingRepository.existsOverlapping(eq(ITEM_ID), any(), any(), anyLong(), any())).thenReturn(true);
+    }
+
+    @Test
+    void touchingIntervalsDoNotOverlap() {
+        assertAvailable(T.plusDays(1), T.plusDays(2));
+        assertAvailable(T.minusDays(1), T);
+        assertAvailable(T.plusDays(3), T.plusDays(10));
+        verify(bookingRepository, never()).existsOverlapping(anyLong(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    void overlapByOneSecondOnEitherSideConflicts() {
+        assertBooked(T.plusDays(1).minusSeconds(1), T.plusDays(2));
+        assertBooked(T.plusDays(1), T.plusDays(2).plusSeconds(1));
+    }
+
+    @Test
+    void windowInsideLongBookingConflicts() {
+        assertBooked(T.plusDays(20), T.plusDays(21));
+    }
+
+    @Test
+    void removedLongBookingNoLongerConflicts() {
+        assertBooked(T.plusDays(20), T.plusDays(21));
+        index.remove(ITEM_ID, 3L);
+
+        assertAvailable(T.plusDays(20), T.plusDays(21));
+        assertBooked(T.plusDays(2).plusHours(1), T.plusDays(2).plusHours(2));
+    }
+
+    @Test
+    void remainingLongBookingOfSameLengthIsStillFound() {
+        assertBooked(T.plusDays(20), T.plusDays(21));
+        index.put(interval(4, T.plusDays(40), T.plusDays(60), BookingStatus.APPROVED));
+        assertBooked(T.plusDays(50), T.plusDays(51));
+        index.remove(ITEM_ID, 3L);
+
+        assertBooked(T.plusDays(50), T.plusDays(51));
+        assertAvailable(T.plusDays(20), T.plusDays(21));
+    }
+
+    @Test
+    void shortenedBookingNarrowsSearch() {
+        assertBooked(T.plusDays(20), T.plusDays(21));
+        // то же бронирование после изменения дат: старая длина не должна сохраняться
+        index.put(interval(3, T.plusDays(10), T.plusDays(11), BookingStatus.APPROVED));
+
+        assertAvailable(T.plusDays(20), T.plusDays(21));
+        assertBooked(T.plusDays(10).plusHours(1), T.plusDays(10).plusHours(2));
+    }
+
+    @Test
+    void excludedBookingAndOtherStatusesAreIgnored() {
+        assertThatCode(() -> index.checkAvailable(ITEM_ID, T.plusHours(1), T.plusHours(2), 1L,
+                BookingIntervalIndex.ACTIVE_STATUSES)).doesNotThrowAnyException();
+        assertThatCode(() -> index.checkAvailable(ITEM_ID, T.plusDays(2), T.plusDays(3), null,
+                List.of(BookingStatus.APPROVED))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void staleConflictIsCheckedAgainstTable() {
+        when(bookingRepository.existsOverlapping(eq(ITEM_ID), any(), any(), anyLong(), any())).thenReturn(false);
+        assertAvailable(T.plusHours(1), T.plusHours(2));
+        verify(bookingRepository).existsOverlapping(eq(ITEM_ID), eq(T.plusHours(1)), eq(T.plusHours(2)), eq(0L), any());
+    }
+
+    private void assertAvailable(LocalDateTime start, LocalDateTime end) {
+        assertThatCode(() -> index.checkAvailable(ITEM_ID, start, end, null, BookingIntervalIndex.ACTIVE_STATUSES))
+                .doesNotThrowAnyException();
+    }
+
+    private void assertBooked(LocalDateTime start, LocalDateTime end) {
+        assertThatThrownBy(() -> index.checkAvailable(ITEM_ID, start, end, null, BookingIntervalIndex.ACTIVE_STATUSES))
+                .isInstanceOf(NotAvailableException.class);
+    }
+
+    private static BookingInterval interval(long id, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return new BookingInterval(ITEM_ID, id, start, end, status);
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.booking.query;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.pagination.KeysetCursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// слияние основной таблицы и архива: порядок (start desc, id desc) общий для обеих таблиц.
+// Движок вызывается из транзакции сервиса: архив читается потоком
+@SpringBootTest
+@Sql("classpath:schema.sql")
+@Transactional
+class BookingQueryEngineTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 6, 1, 12, 0);
+    private static final long OWNER_ID = 1;
+    private static final long BOOKER_ID = 2;
+
+    @Autowired
+    private BookingQueryEngine engine;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // начало 5 дней назад совпадает у 2 и 1001, 20 дней назад - у 3000 и 1002
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (1, 'owner', 'owner@example.com')");
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (2, 'booker', 'booker@example.com')");
+        jdbcTemplate.update("INSERT INTO items (id, name, description, is_available, owner_id) "
+                + "VALUES (1, 'item', 'description', TRUE, 1)");
+        insert("bookings", 1, 1);
+        insert("bookings", 2, 5);
+        insert("bookings", 3000, 20);
+        insert("bookings_archive", 1001, 5);
+        insert("bookings_archive", 1002, 20);
+        insert("bookings_archive", 1003, 300);
+    }
+
+    @Test
+    void mergesBothTablesNewestFirstWithIdBreakingEqualStart() {
+        assertThat(ids(page(BookingQuery.Role.BOOKER, BookingState.ALL, 0, 10)))
+                .containsExactly(1L, 1001L, 2L, 3000L, 1002L, 1003L);
+        assertThat(ids(page(BookingQuery.Role.OWNER, BookingState.PAST, 0, 10)))
+                .containsExactly(1L, 1001L, 2L, 3000L, 1002L, 1003L);
+    }
+
+    @Test
+    void offsetPagesSplitAtEqualStart() {
+        assertThat(ids(page(BookingQuery.Role.BOOKER, BookingState.ALL, 0, 2))).containsExactly(1L, 1001L);
+        assertThat(ids(page(BookingQuery.Role.BOOKER, BookingState.ALL, 2, 2))).containsExactly(2L, 3000L);
+    }
+
+    @Test
+    void offsetPastEndOfOneSideTakesRestFromOther() {
+        // в основной таблице три бронирования: страница целиком из архива
+        assertThat(ids(page(BookingQuery.Role.BOOKER, BookingState.ALL, 4, 2))).containsExactly(1002L, 1003L);
+        assertThat(ids(page(BookingQuery.Role.BOOKER, BookingState.ALL, 3, 3))).containsExactly(3000L, 1002L, 1003L);
+        assertThat(page(BookingQuery.Role.BOOKER, BookingState.ALL, 6, 2)).isEmpty();
+    }
+
+    @Test
+    void cursorContinuesAfterEqualStartInEitherTable() {
+        assertThat(ids(cursorPage(new KeysetCursor(NOW.minusDays(5), 1001L), 10)))
+                .containsExactly(2L, 3000L, 1002L, 1003L);
+        assertThat(ids(cursorPage(new KeysetCursor(NOW.minusDays(5), 2L), 10)))
+                .containsExactly(3000L, 1002L, 1003L);
+        assertThat(ids(cursorPage(new KeysetCursor(NOW.minusDays(20), 3000L), 1)))
+                .containsExactly(1002L);
+    }
+
+    @Test
+    void cursorPagesCoverBothTablesWithoutRepeats() {
+        List<Booking> first = cursorPage(KeysetCursor.firstDescending(), 4);
+        assertThat(ids(first)).containsExactly(1L, 1001L, 2L, 3000L);
+        Booking last = first.get(first.size() - 1);
+        assertThat(ids(cursorPage(new KeysetCursor(last.getStart(), last.getId()), 4)))
+                .containsExactly(1002L, 1003L);
+    }
+
+    private List<Booking> page(BookingQuery.Role role, BookingState state, int from, int size) {
+        return engine.find(BookingQuery.builder()
+                .role(role)
+                .state(state)
+                .userId(role == BookingQuery.Role.OWNER ? OWNER_ID : BOOKER_ID)
+                .from(from)
+                .size(size)
+                .build(), NOW);
+    }
+
+    private List<Booking> cursorPage(KeysetCursor cursor, int size) {
+        return engine.find(BookingQuery.builder()
+                .role(BookingQuery.Role.BOOKER)
+                .state(BookingState.ALL)
+                .userId(BOOKER_ID)
+                .cursor(cursor)
+                .size(size)
+                .build(), NOW);
+    }
+
+    private void insert(String table, long id, int daysAgo) {
+        jdbcTemplate.update("INSERT INTO " + table + " (id, start_date, end_date, item_id, booker_id, status) "
+                        + "VALUES (?, ?, ?, 1, 2, 'APPROVED')",
+                id, NOW.minusDays(daysAgo), NOW.minusDays(daysAgo).plusHours(1));
+    }
+
+    private static List<Long> ids(List<Booking> bookings) {
+        return bookings.stream().map(Booking::getId).collect(Collectors.toList());
+    }
+}
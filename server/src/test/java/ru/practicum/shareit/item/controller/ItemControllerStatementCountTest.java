@@ -0,0 +1,79 @@
+package ru.practicum.shareit.item.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.SqlCapture;
+import ru.practicum.shareit.pagination.KeysetCursor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// вещи владельца, lastBooking/nextBooking и отзывы загружаются для всей страницы сразу.
+// У вещей 2..12 указатели актуальны и бронирования не читаются; у вещи 1 nextBooking уже начался
+@SpringBootTest
+@AutoConfigureMockMvc
+@Sql({"classpath:schema.sql", "classpath:test-data.sql"})
+class ItemControllerStatementCountTest {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void pageWithCurrentPointersReadsOnlyItemsAndComments() throws Exception {
+        for (int size : new int[]{2, 10}) {
+            assertThat(SqlCapture.tables(() -> mvc.perform(get("/items")
+                            .header(USER_HEADER, 1)
+                            .param("cursor", new KeysetCursor(null, 1L).encode())
+                            .param("size", String.valueOf(size)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(size)))
+                    .andExpect(jsonPath("$[0].id").value(2))
+                    .andExpect(jsonPath("$[0].lastBooking.bookerId").value(2))
+                    .andExpect(jsonPath("$[0].nextBooking.bookerId").value(3))
+                    .andExpect(jsonPath("$[0].comments", hasSize(2)))))
+                    .as("page size %d", size)
+                    .containsExactly("items", "comments");
+        }
+    }
+
+    @Test
+    void stalePointerIsResolvedForWholePageInTwoBookingQueries() throws Exception {
+        for (int size : new int[]{2, 10}) {
+            assertThat(SqlCapture.tables(() -> mvc.perform(get("/items")
+                            .header(USER_HEADER, 1)
+                            .param("size", String.valueOf(size)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(size)))
+                    // у вещи 1 вместо начавшегося бронирования - ближайшее будущее из таблицы
+                    .andExpect(jsonPath("$[0].lastBooking.bookerId").value(2))
+                    .andExpect(jsonPath("$[0].nextBooking.bookerId").value(3))
+                    .andExpect(jsonPath("$[1].nextBooking.bookerId").value(3))
+                    .andExpect(jsonPath("$[0].comments", hasSize(2)))))
+                    .as("page size %d", size)
+                    .containsExactly("items", "bookings", "bookings", "comments");
+        }
+    }
+
+    @Test
+    void cursorPageWithStalePointerCostsTheSame() throws Exception {
+        for (int size : new int[]{2, 10}) {
+            assertThat(SqlCapture.tables(() -> mvc.perform(get("/items")
+                            .header(USER_HEADER, 1)
+                            .param("cursor", "")
+                            .param("size", String.valueOf(size)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(size)))
+                    .andExpect(jsonPath("$[0].lastBooking.id").isNotEmpty())))
+                    .as("cursor page size %d", size)
+                    .containsExactly("items", "bookings", "bookings", "comments");
+        }
+    }
+}
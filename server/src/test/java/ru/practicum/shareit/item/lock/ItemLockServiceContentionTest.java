@@ -0,0 +1,109 @@
+package ru.practicum.shareit.item.lock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// пропускная способность блокировок при конкуренции: потоки бронируют вещи по кругу, транзакция держит
+// блокировку HOLD. База заменена заглушкой, транзакция - сном: ни пул соединений, ни процессор не ограничивают
+// результат, и время определяется только ожиданием замков. Разные вещи не мешают друг другу,
+// поэтому пропускная способность растёт линейно с числом вещей, пока их не больше, чем потоков
+class ItemLockServiceContentionTest {
+    private static final int THREADS = 16;
+    private static final int LOCKS_PER_THREAD = 20;
+    private static final long HOLD_MILLIS = 5;
+    // допуск на планировщик и точность сна
+    private static final double MIN_SCALING = 0.6;
+
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final ItemLockService lockService = new ItemLockService(itemRepository, 1024, Duration.ofSeconds(30));
+
+    @Test
+    void throughputGrowsLinearlyWithItems() throws Exception {
+        when(itemRepository.findByIdForUpdate(anyLong()))
+                .thenAnswer(invocation -> Optional.of(Item.builder().id(invocation.getArgument(0)).build()));
+
+        double single = run(1);
+        for (int items : new int[]{2, 4, 8, 16}) {
+            double throughput = run(items);
+            assertThat(throughput / single)
+                    .as("items = %d: %.0f locks/s against %.0f locks/s for one item", items, throughput, single)
+                    .isGreaterThanOrEqualTo(MIN_SCALING * items);
+        }
+    }
+
+    // блокировок в секунду; поток i блокирует вещь i % items
+    private double run(int items) throws Exception {
+        AtomicIntegerArray holders = new AtomicIntegerArray(items + 1);
+        AtomicInteger overlaps = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                long itemId = i % items + 1;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int n = 0; n < LOCKS_PER_THREAD; n++) {
+                        inTransaction(() -> {
+                            lockService.lock(itemId);
+                            if (holders.incrementAndGet((int) itemId) > 1) {
+                                overlaps.incrementAndGet();
+                            }
+                            TimeUnit.MILLISECONDS.sleep(HOLD_MILLIS);
+                            holders.decrementAndGet((int) itemId);
+                        });
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - started;
+            // одну вещь никогда не держат две транзакции сразу
+            assertThat(overlaps.get()).as("items = %d", items).isZero();
+            return THREADS * LOCKS_PER_THREAD * 1e9 / elapsed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // синхронизация транзакции без менеджера транзакций: замок освобождается в afterCompletion, как после коммита
+    private static void inTransaction(Body body) throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            body.run();
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        void run() throws Exception;
+    }
+}
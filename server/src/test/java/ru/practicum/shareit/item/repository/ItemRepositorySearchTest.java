@@ -0,0 +1,48 @@
+package ru.practicum.shareit.item.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.item.model.Item;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// поиск в режиме LIKE: условие по названию или описанию целиком в скобках, недоступные вещи не попадают
+// в выдачу ни по названию, ни по описанию. Запрос FULLTEXT использует tsvector и на H2 не выполняется
+@SpringBootTest
+@Sql({"classpath:schema.sql", "classpath:test-data.sql"})
+class ItemRepositorySearchTest {
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("UPDATE items SET name = 'дрель', is_available = FALSE WHERE id = 11");
+        jdbcTemplate.update("UPDATE items SET description = 'старая дрель', is_available = FALSE WHERE id = 12");
+        jdbcTemplate.update("UPDATE items SET description = 'ударная дрель' WHERE id = 13");
+        jdbcTemplate.update("UPDATE items SET name = 'Дрель' WHERE id = 14");
+    }
+
+    @Test
+    void unavailableMatchingItemsAreExcluded() {
+        assertThat(itemRepository.searchAvailableItems("ДРЕЛЬ", PageRequest.of(0, 10)))
+                .extracting(Item::getId)
+                .containsExactly(14L, 13L);
+    }
+
+    @Test
+    void unavailableItemsDoNotTakePlacesOnPage() {
+        assertThat(itemRepository.searchAvailableItems("дрель", PageRequest.of(0, 1)))
+                .extracting(Item::getId)
+                .containsExactly(14L);
+        assertThat(itemRepository.searchAvailableItems("дрель", PageRequest.of(1, 1)))
+                .extracting(Item::getId)
+                .containsExactly(13L);
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.item.search;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// режим shareit.search.mode выбирает запрос репозитория
+class ItemSearchEngineTest {
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final ItemSearchIndex searchIndex = mock(ItemSearchIndex.class);
+
+    private final Item drill = Item.builder().id(1L).name("дрель").description("ударная").available(true).build();
+
+    @Test
+    void likeModeUsesLikeQuery() {
+        when(itemRepository.searchAvailableItems(any(), any())).thenReturn(List.of(drill));
+
+        List<ItemDto> result = new ItemSearchEngine(itemRepository, searchIndex, SearchMode.LIKE)
+                .search("дрель", 20, 10);
+
+        assertThat(result).extracting(ItemDto::getId).containsExactly(1L);
+        verify(itemRepository).searchAvailableItems("дрель", PageRequest.of(2, 10));
+        verify(itemRepository, never()).searchAvailableItemsFullText(any(), any());
+    }
+
+    @Test
+    void fullTextModeUsesFullTextQuery() {
+        when(itemRepository.searchAvailableItemsFullText(any(), any())).thenReturn(List.of(drill));
+
+        List<ItemDto> result = new ItemSearchEngine(itemRepository, searchIndex, SearchMode.FULLTEXT)
+                .search("дрель", 20, 10);
+
+        assertThat(result).extracting(ItemDto::getId).containsExactly(1L);
+        verify(itemRepository).searchAvailableItemsFullText("дрель", PageRequest.of(2, 10));
+        verify(itemRepository, never()).searchAvailableItems(any(), any());
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.item.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.interval.BookingInterval;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// интервалы приходят из findIntervalsInWindow: пересекают окно и отсортированы по (start, id)
+class ItemServiceImplAvailabilityTest {
+    private static final LocalDateTime FROM = LocalDateTime.of(2030, 6, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusDays(10);
+
+    @Test
+    void bookingsCrossingBothEndsAreClippedToWindow() {
+        ItemAvailabilityDto availability = ItemServiceImpl.toAvailability(1L, FROM, TO, List.of(
+                interval(1, FROM.minusDays(3), FROM.plusDays(2)),
+                interval(2, FROM.plusDays(8), TO.plusDays(5))));
+
+        assertThat(availability.getBusy()).extracting(ItemAvailabilityDto.Interval::getStart,
+                        ItemAvailabilityDto.Interval::getEnd)
+                .containsExactly(tuple(FROM, FROM.plusDays(2)), tuple(FROM.plusDays(8), TO));
+        assertThat(availability.getFree()).extracting(ItemAvailabilityDto.Interval::getStart,
+                        ItemAvailabilityDto.Interval::getEnd)
+                .containsExactly(tuple(FROM.plusDays(2), FROM.plusDays(8)));
+    }
+
+    @Test
+    void bookingCoveringWholeWindowLeavesNoFreeTime() {
+        ItemAvailabilityDto availability = ItemServiceImpl.toAvailability(1L, FROM, TO, List.of(
+                interval(1, FROM.minusDays(1), TO.plusDays(1))));
+
+        assertThat(availability.getBusy()).extracting(ItemAvailabilityDto.Interval::getStart,
+                        ItemAvailabilityDto.Interval::getEnd)
+                .containsExactly(tuple(FROM, TO));
+        assertThat(availability.getFree()).isEmpty();
+    }
+
+    @Test
+    void touchingAndOverlappingBookingsMergeIntoOneBusyPeriod() {
+        ItemAvailabilityDto availability = ItemServiceImpl.toAvailability(1L, FROM, TO, List.of(
+                interval(1, FROM.plusDays(1), FROM.plusDays(3)),
+                interval(2, FROM.plusDays(3), FROM.plusDays(4)),
+                interval(3, FROM.plusDays(3).plusHours(12), FROM.plusDays(6)),
+                // целиком внутри предыдущего: конец периода не сдвигается назад
+                interval(4, FROM.plusDays(4), FROM.plusDays(5))));
+
+        assertThat(availability.getBusy()).extracting(ItemAvailabilityDto.Interval::getStart,
+                        ItemAvailabilityDto.Interval::getEnd)
+                .containsExactly(tuple(FROM.plusDays(1), FROM.plusDays(6)));
+        assertThat(availability.getFree()).extracting(ItemAvailabilityDto.Interval::getStart,
+                        ItemAvailabilityDto.Interval::getEnd)
+                .containsExactly(tuple(FROM, FROM.plusDays(1)), tuple(FROM.plusDays(6), TO));
+    }
+
+    @Test
+    void emptyWindowIsFree() {
+        ItemAvailabilityDto availability = ItemServiceImpl.toAvailability(1L, FROM, TO, List.of());
+
+        assertThat(availability.getBusy()).isEmpty();
+        assertThat(availability.getFree()).extracting(ItemAvailabilityDto.Interval::getStart,
+                        ItemAvailabilityDto.Interval::getEnd)
+                .containsExactly(tuple(FROM, TO));
+    }
+
+    private static BookingInterval interval(long id, LocalDateTime start, LocalDateTime end) {
+        return new BookingInterval(1L, id, start, end, BookingStatus.APPROVED);
+    }
+}
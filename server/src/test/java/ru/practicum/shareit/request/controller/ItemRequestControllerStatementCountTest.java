@@ -0,0 +1,93 @@
+package ru.practicum.shareit.request.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.SqlCapture;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// страница запросов стоит двух запросов при любом размере: запросы вместе с автором и вещи всех запросов страницы.
+// Кроме них - только проверка пользователя. В окне ленты один запрос: страницы /requests/all больше него читаются из базы
+@SpringBootTest(properties = "shareit.requests.feed.size=1")
+@AutoConfigureMockMvc
+@Sql({"classpath:schema.sql", "classpath:test-data.sql"})
+class ItemRequestControllerStatementCountTest {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ItemRequestFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed.rebuild();
+    }
+
+    @Test
+    void ownRequests() throws Exception {
+        assertThat(SqlCapture.tables(() -> mvc.perform(get("/requests").header(USER_HEADER, 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(6)))
+                .andExpect(jsonPath("$[?(@.id == 2)].items[*]", hasSize(1)))))
+                .containsExactly("users", "requests", "items");
+    }
+
+    @Test
+    void otherUsersRequestsFromDatabase() throws Exception {
+        for (int size : new int[]{2, 5}) {
+            assertThat(SqlCapture.tables(() -> mvc.perform(get("/requests/all")
+                            .header(USER_HEADER, 1)
+                            .param("size", String.valueOf(size)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(size)))
+                    .andExpect(jsonPath("$[0].items", hasSize(1)))))
+                    .as("page size %d", size)
+                    .containsExactly("users", "requests", "items");
+        }
+    }
+
+    @Test
+    void otherUsersRequestsCursorPageFromDatabase() throws Exception {
+        for (int size : new int[]{2, 5}) {
+            assertThat(SqlCapture.tables(() -> mvc.perform(get("/requests/all")
+                            .header(USER_HEADER, 1)
+                            .param("cursor", "")
+                            .param("size", String.valueOf(size)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(size)))))
+                    .as("cursor page size %d", size)
+                    .containsExactly("users", "requests", "items");
+        }
+    }
+
+    // страница целиком из окна ленты: в базу только проверка пользователя
+    @Test
+    void otherUsersRequestsFromFeed() throws Exception {
+        assertThat(SqlCapture.tables(() -> mvc.perform(get("/requests/all")
+                        .header(USER_HEADER, 1)
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))))
+                .containsExactly("users");
+    }
+
+    // автор соединяется с запросом, пользователь проверяется после загрузки вещей
+    @Test
+    void requestById() throws Exception {
+        assertThat(SqlCapture.tables(() -> mvc.perform(get("/requests/2").header(USER_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))))
+                .containsExactly("requests", "items", "users");
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.request.feed;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.pagination.KeysetCursor;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// в окне ленты два самых новых запроса из четырёх: вторая страница читается из базы по курсору из окна
+@SpringBootTest(properties = "shareit.requests.feed.size=2")
+@AutoConfigureMockMvc
+@Sql("classpath:schema.sql")
+class ItemRequestFeedPagingTest {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ItemRequestFeed feed;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        feed.rebuild();
+        createUser("reader");
+        createUser("requester");
+        for (int i = 1; i <= 4; i++) {
+            mvc.perform(post("/requests")
+                            .header(USER_HEADER, 2)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"description\":\"request " + i + "\"}"))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    void cursorPagesContinueFromFeedIntoDatabaseWithoutRepeats() throws Exception {
+        MvcResult first = mvc.perform(get("/requests/all").header(USER_HEADER, 1)
+                        .param("cursor", "").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(4, 3)))
+                .andReturn();
+        MvcResult second = mvc.perform(get("/requests/all").header(USER_HEADER, 1)
+                        .param("cursor", first.getResponse().getHeader(KeysetCursor.NEXT_CURSOR_HEADER))
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(2, 1)))
+                .andReturn();
+        mvc.perform(get("/requests/all").header(USER_HEADER, 1)
+                        .param("cursor", second.getResponse().getHeader(KeysetCursor.NEXT_CURSOR_HEADER))
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value(empty()));
+    }
+
+    @Test
+    void feedAndDatabaseReturnSameCreatedTime() throws Exception {
+        String fromFeed = mvc.perform(get("/requests/all").header(USER_HEADER, 1).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(4))
+                .andReturn().getResponse().getContentAsString();
+        String fromDatabase = mvc.perform(get("/requests").header(USER_HEADER, 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(4))
+                .andReturn().getResponse().getContentAsString();
+        assertEquals((String) JsonPath.read(fromDatabase, "$[0].created"), JsonPath.read(fromFeed, "$[0].created"));
+    }
+
+    private void createUser(String name) throws Exception {
+        mvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"" + name + "\",\"email\":\"" + name + "@example.com\"}"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,105 @@
+package ru.practicum.shareit.request.feed;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemShortDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// изменения, закоммиченные пока перестройка читает базу, не теряются при подмене окна.
+// Вне транзакции afterCommit выполняется сразу: изменение вызывается из заглушки репозитория посреди загрузки
+class ItemRequestFeedRebuildTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 6, 1, 12, 0);
+    private static final User READER = User.builder().id(1L).name("reader").email("reader@example.com").build();
+    private static final User REQUESTER = User.builder().id(2L).name("requester").email("requester@example.com").build();
+
+    private final ItemRequestRepository requestRepository = mock(ItemRequestRepository.class);
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+    private final ItemRequestFeed feed = new ItemRequestFeed(requestRepository, itemRepository, 10);
+
+    private final ItemRequest old = request(1L, NOW.minusDays(1));
+    private final ItemRequest added = request(2L, NOW);
+
+    @BeforeEach
+    void setUp() {
+        when(itemRepository.findAllByRequestIds(anyCollection())).thenReturn(List.of(
+                new ItemShortDto(10L, "item", "description", true, 1L)));
+    }
+
+    @Test
+    void requestAddedDuringLoadIsKept() {
+        // загрузка прочитала базу до коммита нового запроса
+        when(requestRepository.findAllByOrderByCreatedDescIdDesc(any())).thenAnswer(invocation -> {
+            feed.add(ItemRequestMapper.toItemRequestDto(added));
+            return List.of(old);
+        });
+
+        feed.rebuild();
+
+        assertThat(ids(feed.page(READER.getId(), 0, 10).orElseThrow())).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void itemChangesDuringLoadAreKept() {
+        Item answer = Item.builder().id(11L).name("answer").description("description").available(true)
+                .ownerId(READER.getId()).itemRequest(old).build();
+        when(requestRepository.findAllByOrderByCreatedDescIdDesc(any())).thenAnswer(invocation -> {
+            feed.putItems(List.of(answer));
+            feed.deleteItem(10L);
+            return List.of(old);
+        });
+
+        feed.rebuild();
+
+        List<ItemRequestDto> page = feed.page(READER.getId(), 0, 10).orElseThrow();
+        assertThat(page.get(0).getItems()).extracting(ItemDto::getId).containsExactly(11L);
+    }
+
+    @Test
+    void requesterDeletedDuringLoadIsGone() {
+        when(requestRepository.findAllByOrderByCreatedDescIdDesc(any())).thenAnswer(invocation -> {
+            feed.deleteUser(REQUESTER.getId(), List.of());
+            return List.of(old);
+        });
+
+        feed.rebuild();
+
+        assertThat(feed.page(READER.getId(), 0, 10).orElseThrow()).isEmpty();
+    }
+
+    @Test
+    void changesAfterRebuildAreNotReplayedByNextOne() {
+        when(requestRepository.findAllByOrderByCreatedDescIdDesc(any())).thenReturn(List.of(old));
+        feed.rebuild();
+        feed.add(ItemRequestMapper.toItemRequestDto(added));
+
+        // следующая загрузка не видит запрос 2 (например, он удалён): старое изменение не возвращает его
+        feed.rebuild();
+
+        assertThat(ids(feed.page(READER.getId(), 0, 10).orElseThrow())).containsExactly(1L);
+    }
+
+    private static ItemRequest request(long id, LocalDateTime created) {
+        return new ItemRequest(id, "request " + id, REQUESTER, created);
+    }
+
+    private static List<Long> ids(List<ItemRequestDto> requests) {
+        return requests.stream().map(ItemRequestDto::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.shareit.request.match;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// изменения, закоммиченные пока перестройка читает базу, не теряются при подмене индекса.
+// Вне транзакции afterCommit выполняется сразу: изменение вызывается из заглушки репозитория посреди загрузки
+class ItemRequestMatchIndexRebuildTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 6, 1, 12, 0);
+    private static final long OWNER_ID = 1L;
+    private static final User REQUESTER = User.builder().id(2L).name("requester").email("requester@example.com").build();
+
+    private final ItemRequestRepository requestRepository = mock(ItemRequestRepository.class);
+    private final ItemRequestMatchIndex index = new ItemRequestMatchIndex(requestRepository, 100);
+
+    private final ItemRequest drill = request(1L, "нужна дрель");
+    private final ItemRequest ladder = request(2L, "нужна лестница");
+
+    @Test
+    void requestAddedDuringLoadIsKept() {
+        when(requestRepository.findOpenBefore(anyLong(), any())).thenAnswer(invocation -> {
+            index.add(ItemRequestMapper.toItemRequestDto(ladder));
+            return List.of(drill);
+        });
+
+        index.rebuild();
+
+        assertThat(ids(index.match("лестница", "", OWNER_ID, 10))).containsExactly(2L);
+        assertThat(ids(index.match("дрель", "", OWNER_ID, 10))).containsExactly(1L);
+    }
+
+    @Test
+    void requestClosedDuringLoadStaysClosed() {
+        // загрузка прочитала запрос открытым до коммита вещи-ответа
+        when(requestRepository.findOpenBefore(anyLong(), any())).thenAnswer(invocation -> {
+            index.close(List.of(1L));
+            return List.of(drill);
+        });
+
+        index.rebuild();
+
+        assertThat(index.match("дрель", "", OWNER_ID, 10)).isEmpty();
+    }
+
+    @Test
+    void requesterDeletedDuringLoadIsGone() {
+        when(requestRepository.findOpenBefore(anyLong(), any())).thenAnswer(invocation -> {
+            index.deleteRequester(REQUESTER.getId());
+            return List.of(drill);
+        });
+
+        index.rebuild();
+
+        assertThat(index.match("дрель", "", OWNER_ID, 10)).isEmpty();
+    }
+
+    @Test
+    void changesAfterRebuildAreNotReplayedByNextOne() {
+        when(requestRepository.findOpenBefore(anyLong(), any())).thenReturn(List.of(drill));
+        index.rebuild();
+        index.add(ItemRequestMapper.toItemRequestDto(ladder));
+
+        // следующая загрузка не видит запрос 2 (на него уже ответили): старое изменение не возвращает его
+        index.rebuild();
+
+        assertThat(index.match("лестница", "", OWNER_ID, 10)).isEmpty();
+    }
+
+    private static ItemRequest request(long id, String description) {
+        return new ItemRequest(id, description, REQUESTER, NOW.plusMinutes(id));
+    }
+
+    private static List<Long> ids(List<ItemRequestDto> requests) {
+        return requests.stream().map(ItemRequestDto::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,194 @@
+package ru.practicum.shareit.schema;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.SqlCapture;
+import ru.practicum.shareit.booking.archive.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.event.BookingEventRepository;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.query.BookingQuery;
+import ru.practicum.shareit.booking.query.BookingQueryEngine;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.KeysetCursor;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// EXPLAIN того SQL, который Hibernate отправляет из репозиториев и движка бронирований.
+// Внешние ключи сняты: в Postgres по ним нет индексов, а H2 строит свои и предпочитает их составным
+@SpringBootTest
+@Sql({"classpath:schema.sql", "classpath:test-data.sql", "classpath:drop-foreign-keys.sql"})
+@Transactional
+class SchemaIndexUsageTest {
+    private static final LocalDateTime NOW = LocalDateTime.now();
+    private static final List<Long> ITEM_IDS = List.of(1L, 2L, 3L);
+    private static final Pattern INDEX = Pattern.compile("idx_[a-z_]+");
+    private static final Set<String> USED = new HashSet<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+    @Autowired
+    private BookingQueryEngine bookingQueryEngine;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemRequestRepository requestRepository;
+    @Autowired
+    private BookingEventRepository eventRepository;
+
+    @BeforeAll
+    static void clearUsed() {
+        USED.clear();
+    }
+
+    // каждый индекс схемы нужен хотя бы одному запросу
+    @AfterAll
+    static void everySchemaIndexIsUsed() throws IOException {
+        String schema;
+        try (var in = SchemaIndexUsageTest.class.getResourceAsStream("/schema.sql")) {
+            schema = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Set<String> declared = new HashSet<>();
+        Matcher matcher = Pattern.compile("CREATE INDEX IF NOT EXISTS (idx_[a-z_]+)").matcher(schema);
+        while (matcher.find()) {
+            declared.add(matcher.group(1));
+        }
+        assertThat(declared).isNotEmpty();
+        assertThat(USED).containsAll(declared);
+    }
+
+    @Test
+    void bookerPagesUseBookerIndexes() throws Exception {
+        assertPlans(() -> bookingQueryEngine.find(query(BookingQuery.Role.BOOKER, BookingState.ALL, null), NOW),
+                "idx_bookings_booker_start", "idx_bookings_archive_booker_start");
+        assertPlans(() -> bookingQueryEngine.find(
+                        query(BookingQuery.Role.BOOKER, BookingState.ALL, KeysetCursor.firstDescending()), NOW),
+                "idx_bookings_booker_start", "idx_bookings_archive_booker_start");
+        assertPlans(() -> bookingQueryEngine.find(query(BookingQuery.Role.BOOKER, BookingState.REJECTED, null), NOW),
+                "idx_bookings_booker_status_start", "idx_bookings_archive_booker_start");
+    }
+
+    @Test
+    void bookedItemsOfDeletedUserUseBookerIndexes() throws Exception {
+        assertPlans(() -> bookingRepository.findItemIdsByBookerId(2L), "idx_bookings_booker_start");
+        assertPlans(() -> archivedBookingRepository.findItemIdsByBookerId(2L), "idx_bookings_archive_booker_start");
+    }
+
+    @Test
+    void ownerPagesUseItemIndexes() throws Exception {
+        assertPlans(() -> bookingQueryEngine.find(query(BookingQuery.Role.OWNER, BookingState.ALL, null), NOW),
+                "idx_items_owner_id", "idx_bookings_item_start", "idx_bookings_archive_item_start");
+        assertPlans(() -> bookingQueryEngine.find(query(BookingQuery.Role.OWNER, BookingState.FUTURE, null), NOW),
+                "idx_items_owner_id", "idx_bookings_item_start");
+    }
+
+    @Test
+    void lastAndNextBookingsUseItemIndexes() throws Exception {
+        // коррелированный max/min по (item_id, status) - второй индекс
+        assertPlans(() -> bookingRepository.findLastBookingsItems(ITEM_IDS, BookingStatus.REJECTED, NOW),
+                "idx_bookings_item_start", "idx_bookings_item_status_start");
+        assertPlans(() -> bookingRepository.findNextBookingsItems(ITEM_IDS, BookingStatus.REJECTED, NOW),
+                "idx_bookings_item_start", "idx_bookings_item_status_start");
+        assertPlans(() -> archivedBookingRepository.findLastBookingsItems(ITEM_IDS, BookingStatus.REJECTED),
+                "idx_bookings_archive_item_start");
+    }
+
+    @Test
+    void commentEligibilityUsesIndexes() throws Exception {
+        assertPlans(() -> bookingRepository.findAllByItemIdAndBookerIdAndStatusIsAndEndIsBefore(
+                1L, 2L, BookingStatus.APPROVED, NOW), "idx_bookings_item_status_start");
+        assertPlans(() -> archivedBookingRepository.existsByItemIdAndBookerIdAndStatus(
+                1L, 2L, BookingStatus.APPROVED), "idx_bookings_archive_booker_start");
+    }
+
+    @Test
+    void availabilityAndOverlapUseItemIndexes() throws Exception {
+        assertPlans(() -> bookingRepository.findIntervalsInWindow(1L, BookingStatus.REJECTED, NOW, NOW.plusDays(5)),
+                "idx_bookings_item_start");
+        assertPlans(() -> bookingRepository.existsOverlapping(1L, NOW, NOW.plusDays(5), 0L,
+                List.of(BookingStatus.APPROVED, BookingStatus.WAITING)), "idx_bookings_item_status_start");
+    }
+
+    @Test
+    void itemQueriesUseItemIndexes() throws Exception {
+        assertPlans(() -> itemRepository.findAllByOwnerId(1L, PageRequest.of(0, 10)), "idx_items_owner_id");
+        assertPlans(() -> itemRepository.findAllByOwnerIdAndIdGreaterThanOrderById(1L, 0L, PageRequest.of(0, 10)),
+                "idx_items_owner_id");
+        assertPlans(() -> itemRepository.findAllByRequestIds(ITEM_IDS), "idx_items_request_id");
+        assertPlans(() -> itemRepository.findIdsWithStartedNextBooking(NOW, PageRequest.of(0, 10)),
+                "idx_items_next_booking_start");
+        assertPlans(() -> commentRepository.findAllByItemIds(ITEM_IDS), "idx_comments_item_created");
+    }
+
+    @Test
+    void requestPagesUseRequestIndexes() throws Exception {
+        assertPlans(() -> requestRepository.findAllByRequesterIdOrderByCreatedDesc(2L),
+                "idx_requests_requester_created");
+        // сортировка та же, что у ItemRequestServiceImpl
+        assertPlans(() -> requestRepository.findAllByRequesterIdIsNot(1L, PageRequest.of(0, 10,
+                        Sort.by(Sort.Direction.DESC, "created").and(Sort.by(Sort.Direction.DESC, "id")))),
+                "idx_requests_created_id");
+        assertPlans(() -> requestRepository.findAllByRequesterIdIsNotAfter(1L, NOW, Long.MAX_VALUE,
+                PageRequest.ofSize(10)), "idx_requests_created_id");
+    }
+
+    @Test
+    void outboxBatchChecksEarlierEventsByIndex() throws Exception {
+        assertPlans(() -> eventRepository.findBatchForDispatch(NOW, PageRequest.ofSize(10)),
+                "idx_booking_events_booking_id");
+    }
+
+    private BookingQuery query(BookingQuery.Role role, BookingState state, KeysetCursor cursor) {
+        return BookingQuery.builder()
+                .role(role)
+                .state(state)
+                .userId(role == BookingQuery.Role.OWNER ? 1L : 2L)
+                .from(0)
+                .size(10)
+                .cursor(cursor)
+                .build();
+    }
+
+    // планы всех отправленных запросов вместе содержат ожидаемые индексы, и ни один не читает таблицу целиком
+    private void assertPlans(SqlCapture.Action action, String... indexes) throws Exception {
+        List<String> statements = SqlCapture.capture(action);
+        assertThat(statements).isNotEmpty();
+        StringBuilder plans = new StringBuilder();
+        for (String sql : statements) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+            assertThat(plan).as(sql).doesNotContainIgnoringCase("tableScan");
+            Matcher matcher = INDEX.matcher(plan);
+            while (matcher.find()) {
+                USED.add(matcher.group());
+            }
+            plans.append(plan).append('\n');
+        }
+        assertThat(plans.toString()).contains(indexes);
+    }
+}
@@ -0,0 +1,100 @@
+package ru.practicum.shareit.user.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.item.pointer.BookingPointerService;
+import ru.practicum.shareit.item.service.ItemService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// удаление бронирующего каскадом удаляет его бронирования чужих вещей: указатели и занятость этих вещей пересчитываются
+@SpringBootTest
+@Sql({"classpath:schema.sql", "classpath:test-data.sql"})
+class UserServiceImplDeleteTest {
+    private static final long OWNER_ID = 1;
+    private static final long BOOKER_ID = 2;
+    private static final long OTHER_ID = 3;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private BookingPointerService pointerService;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // указатели по таблицам бронирований: прошедшее бронирование пользователя 2, будущее - пользователя 3
+    @BeforeEach
+    void setUp() {
+        // вещи-ответы не дают удалить автора запроса (fk_request без каскада): здесь проверяются только бронирования
+        jdbcTemplate.update("UPDATE items SET request_id = NULL");
+        pointerService.refresh(LongStream.rangeClosed(1, 14).boxed().collect(Collectors.toList()));
+        assertThat(countPointersTo(BOOKER_ID)).isEqualTo(13);
+    }
+
+    @Test
+    void bookerDeletionClearsPointersToItsBookings() {
+        userService.delete(BOOKER_ID);
+
+        assertThat(countPointersTo(BOOKER_ID)).isZero();
+        // будущие бронирования пользователя 3 остались на месте
+        assertThat(jdbcTemplate.queryForList("SELECT next_booker_id FROM items WHERE owner_id = ?",
+                Long.class, OWNER_ID)).hasSize(12).containsOnly(OTHER_ID);
+        // указатели совпадают с пересчётом по оставшимся бронированиям
+        assertThat(pointerService.refresh(itemIds())).isZero();
+    }
+
+    @Test
+    void ownerDeletionMovesNextPointersOfBookedItems() {
+        userService.delete(OTHER_ID);
+
+        // вещи 13..14 удалены вместе с владельцем, следующим стало ожидающее бронирование пользователя 2
+        assertThat(jdbcTemplate.queryForList("SELECT next_booker_id FROM items", Long.class))
+                .hasSize(12).containsOnly(BOOKER_ID);
+        assertThat(pointerService.refresh(itemIds())).isZero();
+    }
+
+    @Test
+    void bookerDeletionFreesCachedAvailability() {
+        // окно вокруг прошедшего бронирования пользователя 2
+        LocalDateTime from = LocalDateTime.now().minusDays(4);
+        LocalDateTime to = from.plusDays(3);
+        assertThat(itemService.findAvailability(1L, from, to).getBusy()).hasSize(1);
+
+        userService.delete(BOOKER_ID);
+
+        assertThat(itemService.findAvailability(1L, from, to).getBusy()).isEmpty();
+    }
+
+    @Test
+    void ownerDeletionDropsCachedAvailabilityOfOwnItems() {
+        LocalDateTime from = LocalDateTime.now().minusDays(2);
+        itemService.findAvailability(13L, from, from.plusDays(4));
+
+        userService.delete(OTHER_ID);
+
+        assertThatThrownBy(() -> itemService.findAvailability(13L, from, from.plusDays(4)))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    private int countPointersTo(long bookerId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM items WHERE last_booker_id = ? OR next_booker_id = ?",
+                Integer.class, bookerId, bookerId);
+    }
+
+    private List<Long> itemIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM items", Long.class);
+    }
+}
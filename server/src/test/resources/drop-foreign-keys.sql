@@ -0,0 +1,11 @@
+-- Postgres не создаёт индексов для внешних ключей, H2 создаёт. Без ключей планировщик H2 выбирает
+-- из тех же индексов, что и Postgres
+ALTER TABLE requests DROP CONSTRAINT fk_requestor;
+ALTER TABLE items DROP CONSTRAINT fk_items_owner_id;
+ALTER TABLE items DROP CONSTRAINT fk_request;
+ALTER TABLE bookings DROP CONSTRAINT fk_bookings_item_id;
+ALTER TABLE bookings DROP CONSTRAINT fk_bookings_booker_id;
+ALTER TABLE bookings_archive DROP CONSTRAINT fk_bookings_archive_item_id;
+ALTER TABLE bookings_archive DROP CONSTRAINT fk_bookings_archive_booker_id;
+ALTER TABLE comments DROP CONSTRAINT fk_comments_item_id;
+ALTER TABLE comments DROP CONSTRAINT fk_comments_author_id;
@@ -0,0 +1,48 @@
+-- владелец вещей 1, бронирующий 2, третий пользователь 3
+INSERT INTO users (name, email) VALUES ('owner', 'owner@example.com');
+INSERT INTO users (name, email) VALUES ('booker', 'booker@example.com');
+INSERT INTO users (name, email) VALUES ('other', 'other@example.com');
+
+-- запросы 1..12 по минуте друг от друга, чётные от пользователя 2, нечётные от 3
+INSERT INTO requests (description, requester_id, created)
+SELECT 'request ' || x, 2 + MOD(x, 2), DATEADD('MINUTE', -x, LOCALTIMESTAMP) FROM SYSTEM_RANGE(1, 12) r (x);
+
+-- вещи 1..12 владельца 1, первые восемь отвечают на запросы 1..8; вещи 13..14 пользователя 3.
+-- Указатели вещей 2..12 выставляются ниже по их бронированиям. У вещи 1 nextBooking устарел
+-- (бронирование уже началось): её бронирования считаются по таблицам бронирований
+INSERT INTO items (id, name, description, is_available, owner_id, request_id,
+                   next_booking_id, next_booker_id, next_booking_start, next_booking_end)
+SELECT x, 'item ' || x, 'description ' || x, TRUE, 1, CASE WHEN x <= 8 THEN x END,
+       1, 2, DATEADD('HOUR', -1, LOCALTIMESTAMP), DATEADD('HOUR', 1, LOCALTIMESTAMP)
+FROM SYSTEM_RANGE(1, 12) r (x);
+INSERT INTO items (id, name, description, is_available, owner_id)
+SELECT x, 'item ' || x, 'description ' || x, TRUE, 3 FROM SYSTEM_RANGE(13, 14) r (x);
+ALTER SEQUENCE items_seq RESTART WITH 101;
+
+-- у каждой вещи владельца 1: прошедшее, будущее и ожидающее бронирование; у вещи 13 - текущее
+INSERT INTO bookings (start_date, end_date, item_id, booker_id, status)
+SELECT DATEADD('DAY', -3, LOCALTIMESTAMP), DATEADD('DAY', -2, LOCALTIMESTAMP), x, 2, 'APPROVED' FROM SYSTEM_RANGE(1, 12) r (x);
+INSERT INTO bookings (start_date, end_date, item_id, booker_id, status)
+SELECT DATEADD('DAY', x, LOCALTIMESTAMP), DATEADD('DAY', x + 1, LOCALTIMESTAMP), x, 3, 'APPROVED' FROM SYSTEM_RANGE(1, 12) r (x);
+INSERT INTO bookings (start_date, end_date, item_id, booker_id, status)
+SELECT DATEADD('DAY', 20 + x, LOCALTIMESTAMP), DATEADD('DAY', 21 + x, LOCALTIMESTAMP), x, 2, 'WAITING' FROM SYSTEM_RANGE(1, 12) r (x);
+INSERT INTO bookings (start_date, end_date, item_id, booker_id, status)
+VALUES (DATEADD('DAY', -1, LOCALTIMESTAMP), DATEADD('DAY', 1, LOCALTIMESTAMP), 13, 2, 'APPROVED');
+
+-- актуальные указатели: последнее - прошедшее бронирование пользователя 2, следующее - пользователя 3
+UPDATE items i SET (last_booking_id, last_booker_id, last_booking_start, last_booking_end) =
+    (SELECT b.id, b.booker_id, b.start_date, b.end_date FROM bookings b
+     WHERE b.item_id = i.id AND b.booker_id = 2 AND b.status = 'APPROVED')
+WHERE i.id BETWEEN 2 AND 12;
+UPDATE items i SET (next_booking_id, next_booker_id, next_booking_start, next_booking_end) =
+    (SELECT b.id, b.booker_id, b.start_date, b.end_date FROM bookings b WHERE b.item_id = i.id AND b.booker_id = 3)
+WHERE i.id BETWEEN 2 AND 12;
+
+-- давно закончившиеся бронирования пользователя 2 в архиве
+INSERT INTO bookings_archive (id, start_date, end_date, item_id, booker_id, status)
+SELECT 1000 + x, DATEADD('DAY', -200 - x, LOCALTIMESTAMP), DATEADD('DAY', -199 - x, LOCALTIMESTAMP), x, 2, 'APPROVED'
+FROM SYSTEM_RANGE(1, 12) r (x);
+
+-- по два отзыва на каждую вещь владельца 1
+INSERT INTO comments (text, item_id, author_id, created)
+SELECT 'comment ' || x, MOD(x, 12) + 1, 2, LOCALTIMESTAMP FROM SYSTEM_RANGE(1, 24) r (x);